@@ -1,5 +1,6 @@
 plugins {
     id("java")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "net.dv8tion.pokedex"
@@ -12,8 +13,79 @@ repositories {
 dependencies {
     // Note: Remove "-rc.1" when 6.0.0 is released
     implementation("net.dv8tion:JDA:6.0.0-rc.1")
+
+    testImplementation(platform("org.junit:junit-bom:5.10.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 tasks.test {
     useJUnitPlatform()
 }
+
+// Offline load test in src/loadtest, against a local stand-in for the Discord api
+sourceSets {
+    create("loadtest") {
+        compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+        runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+    }
+}
+
+// Run with: ./gradlew loadTest -PloadTestArgs="duration=60 slash=50 button=100 autocomplete=200 media=REUSE"
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Sends synthetic interactions to the bot and reports throughput, latency percentiles and upload bytes"
+    classpath = sourceSets["loadtest"].runtimeClasspath
+    mainClass.set("net.dv8tion.pokedex.LoadTest")
+    workingDir = projectDir
+    args = (project.findProperty("loadTestArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
+// Benchmarks for the interaction hot paths live in src/jmh. Run with: ./gradlew jmh
+// Results (throughput, latency percentiles and gc allocation rate per operation) are written to build/results/jmh
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+}
+
+// Pre-builds the binary pokedex snapshot, so the bot can skip parsing the json sources on startup
+tasks.register<JavaExec>("pokedexSnapshot") {
+    group = "build"
+    description = "Writes pokemon-data/pokedex.snapshot from the json sources and media gallery"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("net.dv8tion.pokedex.PokedexSnapshot")
+    workingDir = projectDir
+}
+
+// Checks every pokemon of the json sources and the media gallery, fails if any would be left out of the pokedex
+tasks.register<JavaExec>("pokedexCheck") {
+    group = "verification"
+    description = "Reports every problem in the pokedex sources and media gallery"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("net.dv8tion.pokedex.PokedexIntegrityCheck")
+    workingDir = projectDir
+}
+
+// Hashes, measures and deduplicates the media gallery. Optional args: output file, max file bytes
+tasks.register<JavaExec>("mediaManifest") {
+    group = "build"
+    description = "Writes pokemon-data/media-manifest.tsv from the media gallery"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("net.dv8tion.pokedex.MediaAssetPipeline")
+    workingDir = projectDir
+}
+
+// Aggregates a usage log into per-hour summaries and the most used views, which the bot prewarms on startup.
+// Run with: ./gradlew usageReport -PusageLog=usage.log
+tasks.register<JavaExec>("usageReport") {
+    group = "application"
+    description = "Writes pokemon-data/usage-top.tsv from a usage log"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("net.dv8tion.pokedex.UsageReport")
+    workingDir = projectDir
+    args = listOfNotNull(project.findProperty("usageLog") as String?)
+}
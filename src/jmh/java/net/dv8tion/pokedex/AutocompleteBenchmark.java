@@ -0,0 +1,24 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.interactions.commands.Command;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autocomplete lookups for {@code pokedex-lookup}, from an empty field to misspelled names.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AutocompleteBenchmark
+{
+    @Param({"", "1", "25", "pika", "Charizard", "fire", "ピカ", "chrmander", "zzzzzz"})
+    public String query;
+
+    @Benchmark
+    public List<Command.Choice> search(PokedexBenchmarkState state) {
+        return state.pokedex.getSearchIndex().search(query);
+    }
+}
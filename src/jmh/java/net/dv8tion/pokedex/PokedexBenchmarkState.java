@@ -0,0 +1,44 @@
+package net.dv8tion.pokedex;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A fully loaded pokedex and bot, shared by every benchmark thread.
+ *
+ * <p>Nothing here talks to Discord: the bot is never connected, rendering only builds JDA component trees,
+ * and media is delivered by hosted url so building a card doesn't open any files.
+ */
+@State(Scope.Benchmark)
+public class PokedexBenchmarkState
+{
+    public Pokedex pokedex;
+    public MyTestBot bot;
+    public MediaDelivery mediaDelivery;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        requirePokemonData();
+
+        // Skip the snapshot, so a stale file on disk can't change what we measure
+        pokedex = new Pokedex(null);
+        pokedex.scanMediaImages();
+
+        mediaDelivery = new MediaDelivery(MediaDelivery.Mode.HOSTED);
+        bot = new MyTestBot(CompletableFuture.completedFuture(pokedex), mediaDelivery);
+        bot.awaitPokedex();
+    }
+
+    static void requirePokemonData() {
+        if (!Files.exists(Paths.get("pokemon-data/pokedex.json"))) {
+            throw new IllegalStateException("Benchmarks must run from the repository root, pokemon-data was not found in "
+                + Paths.get("").toAbsolutePath());
+        }
+    }
+}
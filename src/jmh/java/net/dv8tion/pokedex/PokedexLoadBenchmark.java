@@ -0,0 +1,45 @@
+package net.dv8tion.pokedex;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of constructing the {@link Pokedex}, from the json sources and from a binary snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SingleShotTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class PokedexLoadBenchmark
+{
+    private Path snapshotFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        PokedexBenchmarkState.requirePokemonData();
+
+        Pokedex pokedex = new Pokedex(null);
+        snapshotFile = Files.createTempFile("pokedex", ".snapshot");
+        PokedexSnapshot.write(snapshotFile, pokedex, Pokedex.fingerprintSources());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    @Benchmark
+    public Pokedex fromJson() {
+        return new Pokedex(null);
+    }
+
+    @Benchmark
+    public Pokedex fromSnapshot() {
+        return new Pokedex(snapshotFile);
+    }
+}
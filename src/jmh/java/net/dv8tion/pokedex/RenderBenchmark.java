@@ -0,0 +1,54 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.components.container.Container;
+import net.dv8tion.jda.api.components.section.Section;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering paths hit by the slash command and button handlers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBenchmark
+{
+    private int totalPages;
+
+    @Setup(Level.Trial)
+    public void setup(PokedexBenchmarkState state) {
+        totalPages = (state.pokedex.getTotalPokemon() + 9) / 10;
+    }
+
+    @Benchmark
+    public Container pokedexPage(PokedexBenchmarkState state) {
+        return state.bot.getPokedex(null, randomPage(), ResponseBudget.Mode.FULL, PokemonData.Language.ENGLISH);
+    }
+
+    @Benchmark
+    public Container pokedexPageUncached(PokedexBenchmarkState state) {
+        return state.bot.renderPokedex(null, randomPage(), ResponseBudget.Mode.FULL, PokemonData.Language.ENGLISH);
+    }
+
+    @Benchmark
+    public Section pokemonRow(PokedexBenchmarkState state) {
+        return state.bot.getPokemonRow(randomPokemonId(state));
+    }
+
+    @Benchmark
+    public Container pokemonCard(PokedexBenchmarkState state) {
+        int pokemonId = randomPokemonId(state);
+        MediaDelivery.Gallery gallery = state.mediaDelivery.selectGallery(state.pokedex.getPokemon(pokemonId), 4, MediaDelivery.RANDOM_PAGE);
+        return state.bot.getPokemonCard(pokemonId, null, gallery, ResponseBudget.Mode.FULL, PokemonData.Language.ENGLISH);
+    }
+
+    private int randomPage() {
+        return ThreadLocalRandom.current().nextInt(totalPages) + 1;
+    }
+
+    private static int randomPokemonId(PokedexBenchmarkState state) {
+        return ThreadLocalRandom.current().nextInt(state.pokedex.getMaxId()) + 1;
+    }
+}
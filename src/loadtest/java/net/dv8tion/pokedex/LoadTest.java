@@ -0,0 +1,186 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.requests.SequentialRestRateLimiter;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.entities.SelfUserImpl;
+import net.dv8tion.jda.internal.utils.config.AuthorizationConfig;
+import net.dv8tion.jda.internal.utils.config.MetaConfig;
+import net.dv8tion.jda.internal.utils.config.SessionConfig;
+import net.dv8tion.jda.internal.utils.config.ThreadingConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Drives {@link MyTestBot} with synthetic interactions at fixed rates, entirely offline.
+ *
+ * <p>JDA is pointed at a {@link StubDiscordApi} on localhost and is never logged in, so no gateway connection
+ * or token is needed. Events are handed to the bot's listener methods the way JDA's event manager would.
+ *
+ * <p>Arguments are {@code key=value} pairs, all optional:
+ * <ul>
+ *     <li>{@code duration}: seconds to send interactions for, default 30</li>
+ *     <li>{@code slash}, {@code button}, {@code autocomplete}: interactions per second of each kind,
+ *         default 50, 100 and 200</li>
+ *     <li>{@code media}: the {@link MediaDelivery.Mode}, default {@code REUSE}</li>
+ * </ul>
+ * Run with {@code ./gradlew loadTest -PloadTestArgs="duration=60 button=500"}.
+ */
+public class LoadTest
+{
+    private static final Logger LOG = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final long APPLICATION_ID = 100_000_000_000_000_000L;
+    // Responses still arriving this long after the last interaction was sent are counted as unanswered
+    private static final long DRAIN_MILLIS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArguments(args);
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int slashRate = Integer.parseInt(options.getOrDefault("slash", "50"));
+        int buttonRate = Integer.parseInt(options.getOrDefault("button", "100"));
+        int autoCompleteRate = Integer.parseInt(options.getOrDefault("autocomplete", "200"));
+        MediaDelivery.Mode mode = MediaDelivery.Mode.valueOf(options.getOrDefault("media", "REUSE").toUpperCase(Locale.ROOT));
+
+        if (!Files.exists(Paths.get("pokemon-data/pokedex.json"))) {
+            throw new IllegalStateException("The load test must run from the repository root, pokemon-data was not found in "
+                + Paths.get("").toAbsolutePath());
+        }
+
+        StubDiscordApi api = new StubDiscordApi(APPLICATION_ID);
+        api.start();
+
+        Pokedex pokedex = new Pokedex(null);
+        pokedex.scanMediaImages();
+        MediaDelivery mediaDelivery = new MediaDelivery(mode);
+        MyTestBot bot = new MyTestBot(CompletableFuture.completedFuture(pokedex), mediaDelivery);
+        bot.awaitPokedex();
+
+        JDAImpl jda = createOfflineJda(api, bot);
+        SyntheticInteractions interactions = new SyntheticInteractions(jda, pokedex, APPLICATION_ID);
+
+        LOG.info("Sending {} slash commands, {} buttons and {} autocompletes per second for {}s, media delivered by {}",
+            slashRate, buttonRate, autoCompleteRate, durationSeconds, mode);
+
+        ScheduledExecutorService senders = Executors.newScheduledThreadPool(3);
+        long start = System.nanoTime();
+        schedule(senders, slashRate, () -> fire(bot, interactions.slashCommand(api)));
+        schedule(senders, buttonRate, () -> fire(bot, interactions.button(api)));
+        schedule(senders, autoCompleteRate, () -> fire(bot, interactions.autoComplete(api)));
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+        senders.shutdownNow();
+        long sendNanos = System.nanoTime() - start;
+
+        long drainDeadline = System.currentTimeMillis() + DRAIN_MILLIS;
+        while (System.currentTimeMillis() < drainDeadline && api.getAllResponses().stream().anyMatch(responses -> !responses.isAnswered())) {
+            Thread.sleep(100);
+        }
+
+        report(api, mediaDelivery, sendNanos);
+        api.stop();
+        jda.shutdownNow();
+        System.exit(0);
+    }
+
+    private static JDAImpl createOfflineJda(StubDiscordApi api, MyTestBot bot) {
+        // Same rate limiter setup as production, so the REST queue is part of what's measured
+        RestConfig restConfig = new RestConfig()
+            .setBaseUrl(api.getBaseUrl())
+            .setRateLimiterFactory(config -> new MeasuredRateLimiter(new SequentialRestRateLimiter(config), bot.getMetrics(), bot.getRateLimits()));
+
+        ThreadingConfig threadingConfig = ThreadingConfig.getDefault();
+        threadingConfig.init(() -> "LoadTest");
+
+        JDAImpl jda = new JDAImpl(
+            new AuthorizationConfig("loadtest"),
+            SessionConfig.getDefault(),
+            threadingConfig,
+            MetaConfig.getDefault(),
+            restConfig
+        );
+
+        SelfUserImpl selfUser = new SelfUserImpl(APPLICATION_ID, jda);
+        selfUser.setApplicationId(APPLICATION_ID);
+        jda.setSelfUser(selfUser);
+
+        return jda;
+    }
+
+    private static void schedule(ScheduledExecutorService senders, int perSecond, Runnable send) {
+        if (perSecond <= 0) {
+            return;
+        }
+
+        senders.scheduleAtFixedRate(() -> {
+            try {
+                send.run();
+            }
+            catch (RuntimeException e) {
+                // A failing tick would otherwise silently cancel the schedule
+                LOG.error("Failed to send a synthetic interaction", e);
+            }
+        }, 0, TimeUnit.SECONDS.toNanos(1) / perSecond, TimeUnit.NANOSECONDS);
+    }
+
+    private static void fire(MyTestBot bot, GenericEvent event) {
+        // What the event manager does with events from the gateway
+        bot.onEvent(event);
+    }
+
+    private static void report(StubDiscordApi api, MediaDelivery mediaDelivery, long sendNanos) {
+        List<StubDiscordApi.Responses> all = new ArrayList<>(api.getAllResponses());
+        List<StubDiscordApi.Responses> answered = all.stream().filter(StubDiscordApi.Responses::isAnswered).toList();
+        double seconds = sendNanos / 1e9;
+
+        StringBuilder out = new StringBuilder("\n");
+        out.append(String.format("Interactions sent:      %d (%.1f/s)%n", all.size(), all.size() / seconds));
+        out.append(String.format("Interactions answered:  %d (%.1f/s sustained), %d unanswered%n",
+            answered.size(), answered.size() / seconds, all.size() - answered.size()));
+        out.append(String.format("Acknowledge latency:    %s%n", percentiles(answered, StubDiscordApi.Responses::getAcknowledgeNanos)));
+        out.append(String.format("Completion latency:     %s%n", percentiles(answered, StubDiscordApi.Responses::getCompletionNanos)));
+        out.append(String.format("Uploads:                %d files in %d request bytes (bot counted %d files, %d bytes)%n",
+            api.getUploadedFiles(), api.getUploadedBytes(), mediaDelivery.getUploadCount(), mediaDelivery.getUploadBytes()));
+        out.append(String.format("CDN url reuse:          %d hits, %d misses%n", mediaDelivery.getCdnUrlHits(), mediaDelivery.getCdnUrlMisses()));
+        out.append("Requests by route:\n");
+        api.getRequests().forEach((route, count) ->
+            out.append(String.format("  %-32s %8d requests %12d bytes%n", route, count.sum(), api.getRequestBytes().get(route).sum())));
+
+        LOG.info("Load test finished{}", out);
+    }
+
+    private static String percentiles(List<StubDiscordApi.Responses> responses, Function<StubDiscordApi.Responses, Long> metric) {
+        if (responses.isEmpty()) {
+            return "n/a";
+        }
+
+        long[] nanos = responses.stream().mapToLong(metric::apply).sorted().toArray();
+        return String.format("p50 %.2fms, p99 %.2fms, max %.2fms",
+            nanos[(int) (nanos.length * 0.50)] / 1e6,
+            nanos[Math.min(nanos.length - 1, (int) (nanos.length * 0.99))] / 1e6,
+            nanos[nanos.length - 1] / 1e6);
+    }
+
+    private static Map<String, String> parseArguments(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator).trim(), arg.substring(separator + 1).trim());
+        }
+
+        return options;
+    }
+}
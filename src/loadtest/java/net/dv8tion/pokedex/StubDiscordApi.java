@@ -0,0 +1,305 @@
+package net.dv8tion.pokedex;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the parts of the Discord REST api the bot uses to answer interactions.
+ *
+ * <p>Accepts interaction callbacks and edits of the original response, and remembers the files attached to each
+ * response so fetching it returns attachments with CDN-style urls, just like Discord does. Every request is
+ * counted per route, together with its body size, and the time of the first and last response to every
+ * interaction is recorded for {@link LoadTest}.
+ */
+public class StubDiscordApi
+{
+    private static final Pattern FILE_NAME = Pattern.compile("filename=\"([^\"]+)\"");
+    // Discord signs attachment urls for about a day
+    private static final long ATTACHMENT_URL_LIFETIME_SECONDS = TimeUnit.HOURS.toSeconds(24);
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+    private final long applicationId;
+    private final DataObject botUser;
+    private final AtomicLong nextSnowflake = new AtomicLong(1);
+
+    // "METHOD route" -> request count / request body bytes
+    private final Map<String, LongAdder> requests = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> requestBytes = new ConcurrentSkipListMap<>();
+    private final LongAdder uploadedFiles = new LongAdder();
+    private final LongAdder uploadedBytes = new LongAdder();
+
+    // Interaction token -> responses
+    private final Map<String, Responses> responses = new ConcurrentHashMap<>();
+
+    public StubDiscordApi(long applicationId) throws IOException {
+        this.applicationId = applicationId;
+        this.botUser = DataObject.empty()
+            .put("id", Long.toUnsignedString(applicationId))
+            .put("username", "pokedex")
+            .put("discriminator", "0000")
+            .put("avatar", null)
+            .put("bot", true);
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/api/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * @return The base url to configure with {@code RestConfig#setBaseUrl(String)}
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v10/";
+    }
+
+    /**
+     * Remembers when an interaction was sent to the bot, so its response latency can be measured.
+     */
+    public void expect(String token, long sentNanos) {
+        responses.put(token, new Responses(sentNanos));
+    }
+
+    public Responses getResponses(String token) {
+        return responses.get(token);
+    }
+
+    public Collection<Responses> getAllResponses() {
+        return responses.values();
+    }
+
+    public Map<String, LongAdder> getRequests() {
+        return requests;
+    }
+
+    public Map<String, LongAdder> getRequestBytes() {
+        return requestBytes;
+    }
+
+    public long getUploadedFiles() {
+        return uploadedFiles.sum();
+    }
+
+    public long getUploadedBytes() {
+        return uploadedBytes.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try
+        {
+            long now = System.nanoTime();
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody())
+            {
+                body = in.readAllBytes();
+            }
+
+            // /api/v10/interactions/{id}/{token}/callback or /api/v10/webhooks/{application}/{token}/messages/@original
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String route = path.length > 3 ? method + " " + path[3] : method + " unknown";
+            if (path.length > 6 && "messages".equals(path[6])) {
+                route += " messages";
+            }
+            requests.computeIfAbsent(route, key -> new LongAdder()).increment();
+            requestBytes.computeIfAbsent(route, key -> new LongAdder()).add(body.length);
+
+            List<String> files = getUploadedFileNames(exchange, body);
+            if (!files.isEmpty()) {
+                uploadedFiles.add(files.size());
+                uploadedBytes.add(body.length);
+            }
+
+            if (path.length > 5 && "interactions".equals(path[3])) {
+                recordResponse(path[5], now, files);
+                // Discord answers callbacks without content, unless asked for the resulting message
+                if (exchange.getRequestURI().getQuery() != null && exchange.getRequestURI().getQuery().contains("with_response=true")) {
+                    respond(exchange, 200, callbackResponse(path[4], path[5]));
+                }
+                else {
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                return;
+            }
+
+            if (path.length > 5 && "webhooks".equals(path[3])) {
+                String token = path[5];
+                if (!"GET".equals(method)) {
+                    recordResponse(token, now, files);
+                }
+                respond(exchange, 200, message(token));
+                return;
+            }
+
+            respond(exchange, 404, DataObject.empty().put("message", "Unknown route").put("code", 0));
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    private void recordResponse(String token, long now, List<String> files) {
+        Responses tracked = responses.get(token);
+        if (tracked != null) {
+            tracked.record(now, files);
+        }
+    }
+
+    private static List<String> getUploadedFileNames(HttpExchange exchange, byte[] body) {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType == null || !contentType.startsWith("multipart/")) {
+            return List.of();
+        }
+
+        // Part headers are ASCII, decoding the binary parts as latin-1 keeps the offsets intact
+        List<String> fileNames = new ArrayList<>();
+        Matcher matcher = FILE_NAME.matcher(new String(body, StandardCharsets.ISO_8859_1));
+        while (matcher.find()) {
+            fileNames.add(matcher.group(1));
+        }
+
+        return fileNames;
+    }
+
+    private DataObject callbackResponse(String interactionId, String token) {
+        DataObject message = message(token);
+        return DataObject.empty()
+            .put("interaction", DataObject.empty()
+                .put("id", interactionId)
+                .put("type", 2)
+                .put("response_message_id", message.getString("id"))
+                .put("response_message_loading", false)
+                .put("response_message_ephemeral", false))
+            .put("resource", DataObject.empty()
+                .put("type", 4)
+                .put("message", message));
+    }
+
+    private DataObject message(String token) {
+        Responses tracked = responses.get(token);
+        long expiresAt = System.currentTimeMillis() / 1000 + ATTACHMENT_URL_LIFETIME_SECONDS;
+
+        DataArray attachments = DataArray.empty();
+        if (tracked != null) {
+            for (String fileName : tracked.getFileNames()) {
+                String id = Long.toString(nextSnowflake.getAndIncrement());
+                String url = "https://cdn.discordapp.com/attachments/1/" + id + "/" + fileName
+                    + "?ex=" + Long.toHexString(expiresAt) + "&is=0&hm=0";
+                attachments.add(DataObject.empty()
+                    .put("id", id)
+                    .put("filename", fileName)
+                    .put("size", 0)
+                    .put("url", url)
+                    .put("proxy_url", url));
+            }
+        }
+
+        return DataObject.empty()
+            .put("id", Long.toString(nextSnowflake.getAndIncrement()))
+            .put("channel_id", Long.toUnsignedString(SyntheticInteractions.CHANNEL_ID))
+            .put("application_id", Long.toUnsignedString(applicationId))
+            .put("webhook_id", Long.toUnsignedString(applicationId))
+            .put("author", botUser)
+            .put("type", 20)
+            .put("content", "")
+            .put("timestamp", "2025-01-01T00:00:00.000000+00:00")
+            .put("edited_timestamp", null)
+            .put("tts", false)
+            .put("mention_everyone", false)
+            .put("mentions", DataArray.empty())
+            .put("mention_roles", DataArray.empty())
+            .put("attachments", attachments)
+            .put("embeds", DataArray.empty())
+            .put("components", DataArray.empty())
+            .put("pinned", false)
+            .put("flags", 1 << 15);
+    }
+
+    private static void respond(HttpExchange exchange, int status, DataObject json) throws IOException {
+        byte[] body = json.toJson();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(body);
+        }
+    }
+
+    /**
+     * The responses the bot sent for one interaction.
+     */
+    public static class Responses {
+        private final long sentNanos;
+        private volatile long firstResponseNanos;
+        private volatile long lastResponseNanos;
+        private final List<String> fileNames = Collections.synchronizedList(new ArrayList<>());
+
+        private Responses(long sentNanos) {
+            this.sentNanos = sentNanos;
+        }
+
+        private synchronized void record(long now, List<String> files) {
+            if (firstResponseNanos == 0) {
+                firstResponseNanos = now;
+            }
+            lastResponseNanos = Math.max(lastResponseNanos, now);
+            if (!files.isEmpty()) {
+                // Each response replaces the attachments of the previous one
+                fileNames.clear();
+                fileNames.addAll(files);
+            }
+        }
+
+        private List<String> getFileNames() {
+            synchronized (fileNames) {
+                return new ArrayList<>(fileNames);
+            }
+        }
+
+        public boolean isAnswered() {
+            return firstResponseNanos != 0;
+        }
+
+        /**
+         * @return Nanoseconds from sending the interaction until the first response (reply or defer) arrived
+         */
+        public long getAcknowledgeNanos() {
+            return firstResponseNanos - sentNanos;
+        }
+
+        /**
+         * @return Nanoseconds from sending the interaction until the last response arrived
+         */
+        public long getCompletionNanos() {
+            return lastResponseNanos - sentNanos;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.utils.TimeUtil;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.interactions.command.CommandAutoCompleteInteractionImpl;
+import net.dv8tion.jda.internal.interactions.command.SlashCommandInteractionImpl;
+import net.dv8tion.jda.internal.interactions.component.ButtonInteractionImpl;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds interaction events the way JDA would from a gateway {@code INTERACTION_CREATE}, for a user who
+ * installed the bot and uses it in a DM.
+ *
+ * <p>The mix of commands and buttons resembles real usage: mostly lookups and card navigation.
+ */
+public class SyntheticInteractions
+{
+    static final long USER_ID = 100_000_000_000_000_001L;
+    static final long CHANNEL_ID = 100_000_000_000_000_002L;
+
+    private final JDAImpl jda;
+    private final Pokedex pokedex;
+    private final long applicationId;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SyntheticInteractions(JDAImpl jda, Pokedex pokedex, long applicationId) {
+        this.jda = jda;
+        this.pokedex = pokedex;
+        this.applicationId = applicationId;
+    }
+
+    public SlashCommandInteractionEvent slashCommand(StubDiscordApi api) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        DataObject data = DataObject.empty().put("id", "1").put("type", 1);
+
+        int roll = random.nextInt(10);
+        if (roll < 4) {
+            data.put("name", "pokedex-lookup").put("options", DataArray.empty().add(option("pokemon-id", 4, randomPokemonId())));
+        }
+        else if (roll < 6) {
+            data.put("name", "pokedex").put("options", DataArray.empty());
+        }
+        else if (roll < 8) {
+            data.put("name", "pokedex-evolutions").put("options", DataArray.empty().add(option("pokemon-id", 4, randomPokemonId())));
+        }
+        else {
+            String type = PokedexQuery.TYPES.get(random.nextInt(PokedexQuery.TYPES.size()));
+            data.put("name", "pokedex-search").put("options", DataArray.empty()
+                .add(option("type", 3, type))
+                .add(option("sort-by", 3, PokemonData.Stat.SPEED.name())));
+        }
+
+        DataObject interaction = interaction(api, 2).put("data", data);
+        return new SlashCommandInteractionEvent(jda, 0, new SlashCommandInteractionImpl(jda, interaction));
+    }
+
+    public ButtonInteractionEvent button(StubDiscordApi api) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        String customId;
+        int roll = random.nextInt(10);
+        if (roll < 5) {
+            customId = ComponentId.pokemonCard(randomPokemonId(), random.nextInt(4), null);
+        }
+        else if (roll < 8) {
+            Generation generation = Generation.values()[random.nextInt(Generation.values().length)];
+            int pages = (pokedex.getTotalPokemon(generation) + 9) / 10;
+            customId = ComponentId.pokedexPage(generation, 1 + random.nextInt(Math.max(1, pages)));
+        }
+        else {
+            String type = PokedexQuery.TYPES.get(random.nextInt(PokedexQuery.TYPES.size()));
+            PokedexQuery query = new PokedexQuery(type, null, null, PokemonData.Stat.ATTACK, false, null, 0, PokedexQuery.MAX_STAT_VALUE);
+            customId = ComponentId.searchPage(query, 1 + random.nextInt(3));
+        }
+
+        DataObject button = DataObject.empty()
+            .put("type", 2)
+            .put("style", 2)
+            .put("label", "Load test")
+            .put("custom_id", customId);
+        DataObject message = DataObject.empty()
+            .put("id", Long.toString(nextSnowflake()))
+            .put("channel_id", Long.toUnsignedString(CHANNEL_ID))
+            .put("author", user().put("id", Long.toUnsignedString(applicationId)).put("bot", true))
+            .put("type", 20)
+            .put("content", "")
+            .put("timestamp", "2025-01-01T00:00:00.000000+00:00")
+            .put("edited_timestamp", null)
+            .put("tts", false)
+            .put("mention_everyone", false)
+            .put("mentions", DataArray.empty())
+            .put("mention_roles", DataArray.empty())
+            .put("attachments", DataArray.empty())
+            .put("embeds", DataArray.empty())
+            .put("pinned", false)
+            .put("components", DataArray.empty().add(DataObject.empty().put("type", 1).put("components", DataArray.empty().add(button))));
+
+        DataObject interaction = interaction(api, 3)
+            .put("message", message)
+            .put("data", DataObject.empty().put("custom_id", customId).put("component_type", 2));
+        return new ButtonInteractionEvent(jda, 0, new ButtonInteractionImpl(jda, interaction));
+    }
+
+    public CommandAutoCompleteInteractionEvent autoComplete(StubDiscordApi api) {
+        // What users type: the first few letters of a name
+        String name = pokedex.getPokemon(randomPokemonId()).getName();
+        String typed = name.substring(0, Math.min(name.length(), 1 + ThreadLocalRandom.current().nextInt(4)));
+
+        DataObject interaction = interaction(api, 4).put("data", DataObject.empty()
+            .put("id", "1")
+            .put("type", 1)
+            .put("name", "pokedex-lookup")
+            .put("options", DataArray.empty().add(option("pokemon-id", 4, typed).put("focused", true))));
+        return new CommandAutoCompleteInteractionEvent(jda, 0, new CommandAutoCompleteInteractionImpl(jda, interaction));
+    }
+
+    private DataObject interaction(StubDiscordApi api, int type) {
+        long id = nextSnowflake();
+        String token = "loadtest-" + id;
+        api.expect(token, System.nanoTime());
+
+        return DataObject.empty()
+            .put("id", Long.toUnsignedString(id))
+            .put("application_id", Long.toUnsignedString(applicationId))
+            .put("type", type)
+            .put("token", token)
+            .put("version", 1)
+            .put("locale", "en-US")
+            .put("user", user())
+            .put("channel_id", Long.toUnsignedString(CHANNEL_ID))
+            .put("channel", DataObject.empty()
+                .put("id", Long.toUnsignedString(CHANNEL_ID))
+                .put("type", 1)
+                .put("recipients", DataArray.empty().add(user())))
+            // Bot DM of a user install
+            .put("context", 1)
+            .put("authorizing_integration_owners", DataObject.empty().put("1", Long.toUnsignedString(USER_ID)))
+            .put("app_permissions", "0")
+            .put("entitlements", DataArray.empty());
+    }
+
+    private static DataObject user() {
+        return DataObject.empty()
+            .put("id", Long.toUnsignedString(USER_ID))
+            .put("username", "loadtest")
+            .put("discriminator", "0")
+            .put("global_name", null)
+            .put("avatar", null);
+    }
+
+    private static DataObject option(String name, int type, Object value) {
+        return DataObject.empty().put("name", name).put("type", type).put("value", value);
+    }
+
+    private int randomPokemonId() {
+        List<PokemonData> pokemon = pokedex.getPokemon((Generation) null);
+        return pokemon.get(ThreadLocalRandom.current().nextInt(pokemon.size())).getId();
+    }
+
+    private long nextSnowflake() {
+        // The bot measures its response deadline from the creation time encoded in the id
+        return TimeUtil.getDiscordTimestamp(System.currentTimeMillis()) | (sequence.getAndIncrement() & 0x3FFFFF);
+    }
+}
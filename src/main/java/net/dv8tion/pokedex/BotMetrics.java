@@ -0,0 +1,209 @@
+package net.dv8tion.pokedex;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Minimal metrics registry, rendered in the Prometheus text exposition format.
+ *
+ * <p>Metrics are identified by a name plus alternating label names and values, e.g.
+ * {@code histogram("pokedex_interaction_duration_seconds", "...", "type", "slash", "name", "pokedex")}.
+ * Asking for the same name and labels again returns the same series, so callers don't need to hold on to them.
+ */
+public class BotMetrics
+{
+    // Upper bounds in seconds. Discord expects an interaction response within 3 seconds.
+    private static final double[] LATENCY_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2, 3, 5, 10};
+
+    // Families and their series are sorted so the exposition output is stable between scrapes
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public Histogram histogram(String name, String help, String... labels) {
+        return histogram(name, help, LATENCY_BUCKETS, labels);
+    }
+
+    /**
+     * @param buckets
+     *        Ascending upper bounds of the buckets, in the unit of the values passed to {@link Histogram#observe(double)}
+     */
+    public Histogram histogram(String name, String help, double[] buckets, String... labels) {
+        return (Histogram) family(name, help, "histogram").series.computeIfAbsent(renderLabels(labels), key -> new Histogram(buckets));
+    }
+
+    public LongAdder counter(String name, String help, String... labels) {
+        return (LongAdder) family(name, help, "counter").series.computeIfAbsent(renderLabels(labels), key -> new LongAdder());
+    }
+
+    /**
+     * Registers a counter whose value is maintained elsewhere, e.g. the hit count of a cache.
+     */
+    public void counter(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "counter").series.put(renderLabels(labels), value);
+    }
+
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "gauge").series.put(renderLabels(labels), value);
+    }
+
+    /**
+     * Registers hit, miss and hit-ratio series for a cache.
+     */
+    public void registerCache(String cache, DoubleSupplier hits, DoubleSupplier misses) {
+        counter("pokedex_cache_hits_total", "Cache lookups answered from the cache", hits, "cache", cache);
+        counter("pokedex_cache_misses_total", "Cache lookups that had to compute or fetch the value", misses, "cache", cache);
+        gauge("pokedex_cache_hit_ratio", "Fraction of cache lookups answered from the cache", () -> {
+            double hitCount = hits.getAsDouble();
+            double total = hitCount + misses.getAsDouble();
+            return total == 0 ? 0 : hitCount / total;
+        }, "cache", cache);
+    }
+
+    public void registerCache(RenderCache<?> cache) {
+        registerCache(cache.getName(), cache::getHits, cache::getMisses);
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format (version 0.0.4).
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        families.forEach((name, family) -> {
+            out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+
+            family.series.forEach((labels, series) -> {
+                if (series instanceof Histogram) {
+                    ((Histogram) series).write(out, name, labels);
+                }
+                else if (series instanceof LongAdder) {
+                    writeSample(out, name, labels, ((LongAdder) series).sum());
+                }
+                else {
+                    writeSample(out, name, labels, ((DoubleSupplier) series).getAsDouble());
+                }
+            });
+        });
+
+        return out.toString();
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is a " + family.type + ", not a " + type);
+        }
+
+        return family;
+    }
+
+    private static String renderLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be provided as name/value pairs");
+        }
+
+        if (labels.length == 0) {
+            return "";
+        }
+
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+
+            builder.append(labels[i]).append("=\"");
+            String value = labels[i + 1];
+            for (int c = 0; c < value.length(); c++) {
+                char character = value.charAt(c);
+                switch (character) {
+                    case '\\': builder.append("\\\\"); break;
+                    case '"': builder.append("\\\""); break;
+                    case '\n': builder.append("\\n"); break;
+                    default: builder.append(character);
+                }
+            }
+            builder.append('"');
+        }
+
+        return builder.append('}').toString();
+    }
+
+    private static void writeSample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        }
+        else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static class Family {
+        private final String help;
+        private final String type;
+        // Rendered labels -> Histogram, LongAdder or DoubleSupplier
+        private final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+        private Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    /**
+     * Fixed-bucket histogram, of durations in seconds unless created with other buckets.
+     */
+    public static class Histogram {
+        private final double[] bounds;
+        private final LongAdder[] buckets;
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+
+        private Histogram(double[] bounds) {
+            this.bounds = bounds;
+            this.buckets = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long duration, TimeUnit unit) {
+            observe(unit.toNanos(duration) / 1_000_000_000.0);
+        }
+
+        public void observe(double value) {
+            int bucket = 0;
+            while (bucket < bounds.length && value > bounds[bucket]) {
+                bucket++;
+            }
+
+            buckets[bucket].increment();
+            count.increment();
+            sum.add(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        private void write(StringBuilder out, String name, String labels) {
+            // Bucket samples need "le" added to the existing labels
+            String labelPrefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                String bound = i < bounds.length ? String.valueOf(bounds[i]) : "+Inf";
+                writeSample(out, name + "_bucket", labelPrefix + "le=\"" + bound + "\"}", cumulative);
+            }
+
+            writeSample(out, name + "_sum", labels, sum.sum());
+            writeSample(out, name + "_count", labels, count.sum());
+        }
+    }
+}
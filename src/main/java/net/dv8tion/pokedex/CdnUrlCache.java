@@ -0,0 +1,40 @@
+package net.dv8tion.pokedex;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Remembers the Discord CDN urls of uploaded media files, see {@link MediaDelivery.Mode#REUSE}.
+ *
+ * <p>Keys must identify a file across the whole media gallery, like its path within the gallery. Bare file names
+ * repeat in every media folder.
+ */
+public interface CdnUrlCache
+{
+    String FILE_ENVIRONMENT_VARIABLE = "CDN_URL_CACHE_FILE";
+
+    /**
+     * @return The url of the uploaded file, or null if it is unknown or has expired
+     */
+    String get(String key, long now);
+
+    void put(String key, String url, long expiresAt);
+
+    /**
+     * @return The number of stored urls, including ones that may have expired
+     */
+    int size();
+
+    /**
+     * Uses the {@link SharedCdnUrlCache} file at {@code CDN_URL_CACHE_FILE} if set, so every shard process on the
+     * machine benefits from the uploads of the others. Otherwise the cache is private to this process.
+     */
+    static CdnUrlCache fromEnvironment() throws IOException {
+        String file = System.getenv(FILE_ENVIRONMENT_VARIABLE);
+        if (file == null || file.isBlank()) {
+            return new InMemoryCdnUrlCache();
+        }
+
+        return SharedCdnUrlCache.open(Paths.get(file.trim()));
+    }
+}
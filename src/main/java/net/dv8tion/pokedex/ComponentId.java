@@ -0,0 +1,294 @@
+package net.dv8tion.pokedex;
+
+/**
+ * Encodes the custom ids of the bot's buttons.
+ *
+ * <p>An id is decoded into a {@code long} holding the action, generation, page and pokemon id, read with the
+ * static accessors of this class. Nothing is allocated while decoding, so routing a click costs no garbage.
+ * The packed form also describes what a message shows in its {@link SessionStore} session.
+ *
+ * <p>The encoded form is the {@link #VERSION} tag followed by the packed fields in base 36, e.g. {@code "1b2a"} for page 3 of generation 8.
+ * Changing the layout requires a new version tag; ids with an unknown tag decode to {@link #INVALID}.
+ * Ids from before this encoding ({@code pokemon-card--133}, {@code pokedex--3}, both of the first generation's
+ * pokedex) are still understood, since they live on in messages sent earlier.
+ */
+public final class ComponentId
+{
+    public static final char VERSION = '1';
+
+    /** Returned by {@link #decode(String)} for ids that can't be decoded */
+    public static final long INVALID = -1;
+
+    // Layout, from the least significant bit: action (8), generation (4), page (12), pokemon id (16).
+    // Search pages store their packed query in place of the pokemon id, starting at the same bit.
+    // Cards store the generation of the pokedex they were opened from, 0 for every generation.
+    private static final int GENERATION_SHIFT = 8;
+    private static final int PAGE_SHIFT = 12;
+    private static final int POKEMON_ID_SHIFT = 24;
+    private static final int QUERY_SHIFT = POKEMON_ID_SHIFT;
+    private static final int PACKED_BITS = QUERY_SHIFT + PokedexQuery.PACKED_BITS;
+    private static final int MAX_GENERATION = 0xF;
+    private static final int MAX_PAGE = 0xFFF;
+    private static final int MAX_POKEMON_ID = 0xFFFF;
+    private static final int RADIX = 36;
+
+    private static final String LEGACY_POKEMON_CARD_PREFIX = "pokemon-card--";
+    private static final String LEGACY_POKEDEX_PREFIX = "pokedex--";
+
+    private ComponentId() {}
+
+    /**
+     * Id for a card that starts on a random page of the pokemon's media gallery.
+     *
+     * @param origin
+     *        The generation of the pokedex page the card is opened from, or null for every generation.
+     *        Its "Back" button leads to the page of that pokedex listing the pokemon.
+     */
+    public static String pokemonCard(int pokemonId, Generation origin) {
+        return encode(Action.POKEMON_CARD, origin, 0, pokemonId);
+    }
+
+    /**
+     * Id for a card that shows a specific page of the pokemon's media gallery.
+     *
+     * @param origin
+     *        The generation of the pokedex page the card was opened from, or null for every generation
+     */
+    public static String pokemonCard(int pokemonId, int galleryPage, Generation origin) {
+        return toString(packPokemonCard(pokemonId, galleryPage, origin));
+    }
+
+    /**
+     * @param generation
+     *        The generation shown by the page, or null for every generation
+     */
+    public static String pokedexPage(Generation generation, int page) {
+        return encode(Action.POKEDEX_PAGE, generation, page, 0);
+    }
+
+    /**
+     * Id for a page of {@link PokedexQueryEngine} results.
+     */
+    public static String searchPage(PokedexQuery query, int page) {
+        return toString(packSearchPage(query, page));
+    }
+
+    /**
+     * Id for the "Back" button of a card, leading to the page its session says it came from.
+     * <br>Without a session, e.g. once it expired, the button leads to the provided pokedex page.
+     */
+    public static String back(Generation generation, int page) {
+        return encode(Action.BACK, generation, page, 0);
+    }
+
+    /**
+     * Id for buttons that can't be clicked, like the disabled page indicator.
+     * <br>Ids must be unique within a message, so each one gets its own {@code discriminator}.
+     */
+    public static String none(int discriminator) {
+        return encode(Action.NONE, null, discriminator, 0);
+    }
+
+    public static String encode(Action action, Generation generation, int page, int pokemonId) {
+        return toString(pack(action, generation, page, pokemonId));
+    }
+
+    /**
+     * @return The id in its encoded form
+     */
+    public static String toString(long componentId) {
+        return VERSION + Long.toString(componentId, RADIX);
+    }
+
+    /**
+     * @return The packed id, as {@link #decode(String)} returns it for the encoded id
+     */
+    public static long pack(Action action, Generation generation, int page, int pokemonId) {
+        if (page < 0 || page > MAX_PAGE) {
+            throw new IllegalArgumentException("Page out of range: " + page);
+        }
+        if (pokemonId < 0 || pokemonId > MAX_POKEMON_ID) {
+            throw new IllegalArgumentException("Pokemon id out of range: " + pokemonId);
+        }
+
+        return pack(action, generation == null ? 0 : generation.getNumber(), page, pokemonId);
+    }
+
+    /**
+     * Packed form of {@link #pokemonCard(int, int, Generation)}.
+     */
+    public static long packPokemonCard(int pokemonId, int galleryPage, Generation origin) {
+        // The page field is offset by one, so 0 (also what older ids decode to) can mean "random"
+        return pack(Action.POKEMON_CARD, origin, galleryPage + 1, pokemonId);
+    }
+
+    /**
+     * Packed form of {@link #pokedexPage(Generation, int)}.
+     */
+    public static long packPokedexPage(Generation generation, int page) {
+        return pack(Action.POKEDEX_PAGE, generation, page, 0);
+    }
+
+    /**
+     * Packed form of {@link #searchPage(PokedexQuery, int)}.
+     */
+    public static long packSearchPage(PokedexQuery query, int page) {
+        if (page < 0 || page > MAX_PAGE) {
+            throw new IllegalArgumentException("Page out of range: " + page);
+        }
+
+        return Action.SEARCH_PAGE.code | ((long) page << PAGE_SHIFT) | (query.pack() << QUERY_SHIFT);
+    }
+
+    /**
+     * @return The packed id, or {@link #INVALID}
+     */
+    public static long decode(String componentId) {
+        int length = componentId.length();
+        if (length < 2) {
+            return INVALID;
+        }
+
+        if (componentId.charAt(0) != VERSION) {
+            return decodeLegacy(componentId);
+        }
+
+        // At most 61 bits, which is 12 digits in base 36
+        if (length > 13) {
+            return INVALID;
+        }
+
+        long packed = 0;
+        for (int i = 1; i < length; i++) {
+            int digit = Character.digit(componentId.charAt(i), RADIX);
+            if (digit < 0) {
+                return INVALID;
+            }
+            packed = packed * RADIX + digit;
+        }
+
+        if ((packed >>> PACKED_BITS) != 0 || Action.fromCode((int) (packed & 0xFF)) == null
+                || getGenerationNumber(packed) > Generation.values().length) {
+            return INVALID;
+        }
+
+        return packed;
+    }
+
+    public static Action getAction(long componentId) {
+        return Action.fromCode((int) (componentId & 0xFF));
+    }
+
+    /**
+     * @return The generation number, 0 if the id refers to every generation
+     */
+    public static int getGenerationNumber(long componentId) {
+        return (int) (componentId >>> GENERATION_SHIFT) & MAX_GENERATION;
+    }
+
+    public static Generation getGeneration(long componentId) {
+        int number = getGenerationNumber(componentId);
+        return number == 0 ? null : Generation.fromNumber(number);
+    }
+
+    public static int getPage(long componentId) {
+        return (int) (componentId >>> PAGE_SHIFT) & MAX_PAGE;
+    }
+
+    /**
+     * @return The media gallery page of a {@link Action#POKEMON_CARD} id, or {@link MediaDelivery#RANDOM_PAGE}
+     */
+    public static int getGalleryPage(long componentId) {
+        int page = getPage(componentId);
+        return page == 0 ? MediaDelivery.RANDOM_PAGE : page - 1;
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *         If the id doesn't hold a valid query
+     */
+    public static PokedexQuery getQuery(long componentId) {
+        return PokedexQuery.unpack(componentId >>> QUERY_SHIFT);
+    }
+
+    public static int getPokemonId(long componentId) {
+        return (int) (componentId >>> POKEMON_ID_SHIFT) & MAX_POKEMON_ID;
+    }
+
+    private static long pack(Action action, int generation, int page, int pokemonId) {
+        return action.code
+            | ((long) generation << GENERATION_SHIFT)
+            | ((long) page << PAGE_SHIFT)
+            | ((long) pokemonId << POKEMON_ID_SHIFT);
+    }
+
+    private static long decodeLegacy(String componentId) {
+        try {
+            // pokemon-card--133, only sent from the first generation's pokedex
+            if (componentId.startsWith(LEGACY_POKEMON_CARD_PREFIX)) {
+                int pokemonId = Integer.parseInt(componentId, LEGACY_POKEMON_CARD_PREFIX.length(), componentId.length(), 10);
+                return pokemonId < 0 || pokemonId > MAX_POKEMON_ID ? INVALID : pack(Action.POKEMON_CARD, Generation.GEN_1.getNumber(), 0, pokemonId);
+            }
+
+            if (componentId.startsWith(LEGACY_POKEDEX_PREFIX)) {
+                int generationStart = LEGACY_POKEDEX_PREFIX.length();
+                int separator = componentId.indexOf("--", generationStart);
+
+                int generation;
+                int page;
+                if (separator == -1) {
+                    // pokedex--3, from when the pokedex only showed the first generation
+                    generation = Generation.GEN_1.getNumber();
+                    page = Integer.parseInt(componentId, generationStart, componentId.length(), 10);
+                }
+                else {
+                    // pokedex--1--3
+                    generation = Integer.parseInt(componentId, generationStart, separator, 10);
+                    page = Integer.parseInt(componentId, separator + 2, componentId.length(), 10);
+                }
+                if (generation < 0 || generation > Generation.values().length || page < 0 || page > MAX_PAGE) {
+                    return INVALID;
+                }
+
+                return pack(Action.POKEDEX_PAGE, generation, page, 0);
+            }
+        }
+        catch (NumberFormatException e) {
+            return INVALID;
+        }
+
+        return INVALID;
+    }
+
+    public enum Action {
+        // The codes are part of ids in sent messages. Never reuse or change them.
+        NONE(0, "none"),
+        POKEMON_CARD(1, "pokemon-card"),
+        POKEDEX_PAGE(2, "pokedex"),
+        SEARCH_PAGE(3, "search"),
+        BACK(4, "back");
+
+        private static final Action[] BY_CODE = new Action[256];
+        static {
+            for (Action action : values()) {
+                BY_CODE[action.code] = action;
+            }
+        }
+
+        private final int code;
+        private final String metricName;
+
+        Action(int code, String metricName) {
+            this.code = code;
+            this.metricName = metricName;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+
+        private static Action fromCode(int code) {
+            return BY_CODE[code];
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Dispatches button clicks to the handler registered for the {@link ComponentId.Action} of their id.
+ */
+public class ComponentRouter
+{
+    private final Handler[] handlers = new Handler[ComponentId.Action.values().length];
+    private final Handler fallback;
+
+    private ComponentRouter(Map<ComponentId.Action, Handler> handlers, Handler fallback) {
+        handlers.forEach((action, handler) -> this.handlers[action.ordinal()] = handler);
+        this.fallback = fallback;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param componentId
+     *        The id of the clicked component, already decoded with {@link ComponentId#decode(String)}
+     */
+    public void route(ButtonInteractionEvent event, InteractionResponse response, long componentId) {
+        Handler handler = componentId == ComponentId.INVALID ? null : handlers[ComponentId.getAction(componentId).ordinal()];
+        (handler != null ? handler : fallback).handle(event, response, componentId);
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * @param componentId
+         *        The decoded id, read with the accessors of {@link ComponentId}. {@link ComponentId#INVALID} for
+         *        the fallback handler if the id couldn't be decoded.
+         */
+        void handle(ButtonInteractionEvent event, InteractionResponse response, long componentId);
+    }
+
+    public static class Builder {
+        private final Map<ComponentId.Action, Handler> handlers = new EnumMap<>(ComponentId.Action.class);
+
+        private Builder() {}
+
+        public Builder on(ComponentId.Action action, Handler handler) {
+            if (handlers.putIfAbsent(action, handler) != null) {
+                throw new IllegalStateException("A handler for " + action + " is already registered");
+            }
+            return this;
+        }
+
+        /**
+         * @param fallback
+         *        Handles ids that couldn't be decoded and actions without a handler
+         */
+        public ComponentRouter build(Handler fallback) {
+            return new ComponentRouter(handlers, fallback);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package net.dv8tion.pokedex;
+
+import java.util.Arrays;
+
+/**
+ * Evolutions of every pokemon, resolved once while loading the {@link Pokedex}.
+ *
+ * <p>Edges are stored as id-indexed primitive arrays: one parent per pokemon and the children of each pokemon
+ * in a shared array, addressed by per-id offsets. Every evolution chain (e.g. Eevee and its eight evolutions) is
+ * also stored contiguously in breadth-first order, so a whole chain is a single lookup.
+ *
+ * <p>Instances are immutable and can be read from any thread.
+ */
+public class EvolutionGraph
+{
+    // Indexed by pokemon id. 0 if the pokemon doesn't evolve from anything.
+    private final int[] parents;
+    // Criteria to evolve into the pokemon from its parent
+    private final String[] parentCriteria;
+
+    // The children of id are children[childOffsets[id]] until children[childOffsets[id + 1]]
+    private final int[] childOffsets;
+    private final int[] children;
+
+    // The chain of id is chainMembers[chainStarts[id]] until chainMembers[chainEnds[id]]
+    private final int[] chainStarts;
+    private final int[] chainEnds;
+    private final int[] chainMembers;
+    // Evolution stage within the chain, 0 for the base form
+    private final int[] depths;
+
+    public EvolutionGraph(PokemonTable table) {
+        int slots = table.getMaxId() + 1;
+        this.parents = new int[slots];
+        this.parentCriteria = new String[slots];
+
+        // Evolutions may point at pokemon that aren't part of the loaded data set, those are left out.
+        // The data lists each edge twice (as "next" of the parent and "prev" of the child), take whichever is present.
+        for (int id = 1; id < slots; id++) {
+            if (!table.contains(id)) {
+                continue;
+            }
+
+            for (int i = 0; i < table.getNextEvolutionCount(id); i++) {
+                int childId = table.getNextEvolutionId(id, i);
+                if (table.contains(childId) && childId != id && parents[childId] == 0) {
+                    parents[childId] = id;
+                    parentCriteria[childId] = table.getNextEvolutionCriteria(id, i);
+                }
+            }
+        }
+        for (int id = 1; id < slots; id++) {
+            int parentId = table.contains(id) ? table.getPrevEvolutionId(id) : 0;
+            if (parents[id] == 0 && table.contains(parentId) && parentId != id) {
+                parents[id] = parentId;
+                parentCriteria[id] = table.getPrevEvolutionCriteria(id);
+            }
+        }
+        breakCycles(parents, parentCriteria);
+
+        this.childOffsets = new int[slots + 1];
+        for (int id = 1; id < slots; id++) {
+            if (parents[id] != 0) {
+                childOffsets[parents[id] + 1]++;
+            }
+        }
+        for (int id = 0; id < slots; id++) {
+            childOffsets[id + 1] += childOffsets[id];
+        }
+
+        this.children = new int[childOffsets[slots]];
+        int[] nextChild = Arrays.copyOf(childOffsets, slots);
+        for (int id = 1; id < slots; id++) {
+            if (parents[id] != 0) {
+                children[nextChild[parents[id]]++] = id;
+            }
+        }
+
+        this.chainStarts = new int[slots];
+        this.chainEnds = new int[slots];
+        this.chainMembers = new int[table.size()];
+        this.depths = new int[slots];
+
+        int size = 0;
+        for (int rootId = 1; rootId < slots; rootId++) {
+            if (!table.contains(rootId) || parents[rootId] != 0) {
+                continue;
+            }
+
+            int start = size;
+            chainMembers[size++] = rootId;
+            // Breadth first, the chain array doubles as the queue
+            for (int next = start; next < size; next++) {
+                int id = chainMembers[next];
+                for (int i = childOffsets[id]; i < childOffsets[id + 1]; i++) {
+                    depths[children[i]] = depths[id] + 1;
+                    chainMembers[size++] = children[i];
+                }
+            }
+
+            for (int i = start; i < size; i++) {
+                chainStarts[chainMembers[i]] = start;
+                chainEnds[chainMembers[i]] = size;
+            }
+        }
+    }
+
+    /**
+     * @return The id of the pokemon this one evolves from, or 0
+     */
+    public int getParentId(int pokemonId) {
+        return parents[pokemonId];
+    }
+
+    /**
+     * @return How to evolve into this pokemon from {@link #getParentId(int) its parent}, or null
+     */
+    public String getParentCriteria(int pokemonId) {
+        return parentCriteria[pokemonId];
+    }
+
+    public int getChildCount(int pokemonId) {
+        return childOffsets[pokemonId + 1] - childOffsets[pokemonId];
+    }
+
+    public int getChildId(int pokemonId, int index) {
+        return children[childOffsets[pokemonId] + index];
+    }
+
+    public boolean hasEvolutions(int pokemonId) {
+        return parents[pokemonId] != 0 || getChildCount(pokemonId) > 0;
+    }
+
+    /**
+     * @return The base form of the chain the pokemon belongs to
+     */
+    public int getChainRootId(int pokemonId) {
+        return chainMembers[chainStarts[pokemonId]];
+    }
+
+    /**
+     * @return Number of pokemon in the chain, 1 if the pokemon doesn't evolve
+     */
+    public int getChainSize(int pokemonId) {
+        return chainEnds[pokemonId] - chainStarts[pokemonId];
+    }
+
+    /**
+     * @return The pokemon at {@code index} of the chain, in breadth-first order starting with the base form
+     */
+    public int getChainMemberId(int pokemonId, int index) {
+        return chainMembers[chainStarts[pokemonId] + index];
+    }
+
+    /**
+     * @return The evolution stage of the pokemon, 0 for base forms
+     */
+    public int getDepth(int pokemonId) {
+        return depths[pokemonId];
+    }
+
+    private static void breakCycles(int[] parents, String[] parentCriteria) {
+        // Bad data could make a pokemon its own ancestor, which would leave the cycle without a base form
+        for (int id = 1; id < parents.length; id++) {
+            int ancestor = parents[id];
+            for (int steps = 0; ancestor != 0; steps++) {
+                if (ancestor == id || steps > parents.length) {
+                    parents[id] = 0;
+                    parentCriteria[id] = null;
+                    break;
+                }
+                ancestor = parents[ancestor];
+            }
+        }
+    }
+}
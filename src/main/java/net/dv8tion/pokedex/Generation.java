@@ -0,0 +1,68 @@
+package net.dv8tion.pokedex;
+
+/**
+ * The pokemon generations present in the national pokedex, identified by the id range they introduced.
+ */
+public enum Generation
+{
+    GEN_1(1, 1, 151),
+    GEN_2(2, 152, 251),
+    GEN_3(3, 252, 386),
+    GEN_4(4, 387, 493),
+    GEN_5(5, 494, 649),
+    GEN_6(6, 650, 721),
+    GEN_7(7, 722, 809),
+    GEN_8(8, 810, 905);
+
+    private final int number;
+    private final int firstId;
+    private final int lastId;
+
+    Generation(int number, int firstId, int lastId) {
+        this.number = number;
+        this.firstId = firstId;
+        this.lastId = lastId;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public int getFirstId() {
+        return firstId;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+
+    public boolean contains(int pokemonId) {
+        return pokemonId >= firstId && pokemonId <= lastId;
+    }
+
+    /**
+     * @return The generation with the provided number, or null if no such generation exists
+     */
+    public static Generation fromNumber(int number) {
+        for (Generation generation : values()) {
+            if (generation.number == number) {
+                return generation;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return The generation that introduced the pokemon with the provided id, or null if the id is out of range
+     */
+    public static Generation fromPokemonId(int pokemonId) {
+        for (Generation generation : values()) {
+            if (generation.contains(pokemonId)) {
+                return generation;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,48 @@
+package net.dv8tion.pokedex;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link CdnUrlCache} private to this process.
+ */
+public class InMemoryCdnUrlCache implements CdnUrlCache
+{
+    // Media key -> Discord CDN url
+    private final Map<String, CdnUrl> cdnUrls = new ConcurrentHashMap<>();
+
+    @Override
+    public String get(String key, long now) {
+        CdnUrl cdnUrl = cdnUrls.get(key);
+        if (cdnUrl == null) {
+            return null;
+        }
+
+        if (cdnUrl.expiresAt <= now) {
+            cdnUrls.remove(key, cdnUrl);
+            return null;
+        }
+
+        return cdnUrl.url;
+    }
+
+    @Override
+    public void put(String key, String url, long expiresAt) {
+        cdnUrls.put(key, new CdnUrl(url, expiresAt));
+    }
+
+    @Override
+    public int size() {
+        return cdnUrls.size();
+    }
+
+    private static class CdnUrl {
+        private final String url;
+        private final long expiresAt;
+
+        private CdnUrl(String url, long expiresAt) {
+            this.url = url;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.interactions.callbacks.IAutoCompleteCallback;
+import net.dv8tion.jda.api.interactions.callbacks.IMessageEditCallback;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs interaction handlers on a pool of worker threads, so a slow interaction (e.g. one preparing file uploads)
+ * doesn't hold up every interaction received after it on JDA's event thread.
+ *
+ * <ul>
+ *     <li>Interactions that haven't been answered {@link #AUTO_DEFER_AFTER_MILLIS} after their creation are deferred,
+ *         see {@link InteractionResponse}.</li>
+ *     <li>At most {@code maxInFlight} interactions are queued or running at once. Further interactions are
+ *         answered with {@link #BUSY_MESSAGE} right away instead of piling up behind the others.</li>
+ * </ul>
+ */
+public class InteractionDispatcher
+{
+    private static final Logger LOG = LoggerFactory.getLogger(InteractionDispatcher.class);
+
+    // Leaves a second of Discord's 3 second window for the deferral itself to arrive
+    public static final long AUTO_DEFER_AFTER_MILLIS = 2000;
+
+    public static final String BUSY_MESSAGE = "The pokédex is very busy right now, please try again in a moment.";
+    static final String FAILURE_MESSAGE = "Something went wrong while handling this interaction.";
+
+    private final ExecutorService workers;
+    private final ScheduledExecutorService deferrals;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    public InteractionDispatcher(BotMetrics metrics, int workerCount, int maxInFlight) {
+        // The queue is effectively bounded by the in-flight limit
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), daemonThreads("interaction-worker"));
+        this.deferrals = Executors.newSingleThreadScheduledExecutor(daemonThreads("interaction-deferrals"));
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+
+        metrics.gauge("pokedex_interactions_in_flight", "Interactions queued or being handled", this::getInFlight);
+    }
+
+    /**
+     * @return Number of interactions queued or being handled right now
+     */
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * Handles an interaction that is answered with a message.
+     *
+     * @param handler
+     *        Called on a worker thread. Must answer the interaction through the provided {@link InteractionResponse}.
+     */
+    public <E extends IReplyCallback> void dispatch(E event, InteractionTimer timer, BiConsumer<? super E, InteractionResponse> handler) {
+        if (!inFlight.tryAcquire()) {
+            timer.rejected();
+            event.reply(BUSY_MESSAGE).setEphemeral(true).queue(timer.onSuccess(), timer.onFailure());
+            return;
+        }
+
+        InteractionResponse response = new InteractionResponse(event, timer);
+        long deferDelay = timer.getCreatedAtMillis() + AUTO_DEFER_AFTER_MILLIS - System.currentTimeMillis();
+        ScheduledFuture<?> deferral = deferrals.schedule(() -> defer(event, response, timer), Math.max(0, deferDelay), TimeUnit.MILLISECONDS);
+
+        execute(() -> {
+            try {
+                handler.accept(event, response);
+            }
+            catch (Throwable t) {
+                LOG.error("Failed to handle interaction {}", event.getId(), t);
+                if (!response.isAnswered()) {
+                    response.reply(FAILURE_MESSAGE, true);
+                }
+            }
+            finally {
+                if (response.isAnswered()) {
+                    deferral.cancel(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Handles an autocomplete interaction. These can't be deferred, so they are only subject to the in-flight limit.
+     *
+     * @param handler
+     *        Called on a worker thread. Must reply with the choices, passing the timer to {@code queue(...)}.
+     */
+    public <E extends IAutoCompleteCallback> void dispatchAutoComplete(E event, InteractionTimer timer, BiConsumer<? super E, InteractionTimer> handler) {
+        if (!inFlight.tryAcquire()) {
+            timer.rejected();
+            event.replyChoices().queue(timer.onSuccess(), timer.onFailure());
+            return;
+        }
+
+        execute(() -> {
+            try {
+                handler.accept(event, timer);
+            }
+            catch (Throwable t) {
+                LOG.error("Failed to handle autocomplete interaction {}", event.getId(), t);
+            }
+        });
+    }
+
+    private void execute(Runnable task) {
+        try {
+            workers.execute(() -> {
+                try {
+                    task.run();
+                }
+                finally {
+                    inFlight.release();
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void defer(IReplyCallback event, InteractionResponse response, InteractionTimer timer) {
+        if (!response.claimDeferral()) {
+            return;
+        }
+
+        // Buttons keep showing their message while loading, commands show "thinking..."
+        if (event instanceof IMessageEditCallback) {
+            ((IMessageEditCallback) event).deferEdit().queue(timer.onDeferred(), timer.onFailure());
+        }
+        else {
+            event.deferReply().queue(timer.onDeferred(), timer.onFailure());
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,186 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.components.MessageTopLevelComponent;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.callbacks.IMessageEditCallback;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import net.dv8tion.jda.api.requests.Route;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Responds to an interaction handled by the {@link InteractionDispatcher}.
+ *
+ * <p>The dispatcher defers interactions that haven't been answered shortly before Discord's 3 second deadline.
+ * Handlers don't need to know whether that happened: if the interaction was deferred, the response edits the
+ * deferred message through the {@link InteractionHook} instead of answering the interaction directly.
+ *
+ * <p>Every interaction must be answered exactly once.
+ */
+public class InteractionResponse
+{
+    private static final int PENDING = 0;
+    private static final int RESPONDED = 1;
+    private static final int DEFERRED = 2;
+
+    private final IReplyCallback interaction;
+    private final InteractionTimer timer;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+
+    InteractionResponse(IReplyCallback interaction, InteractionTimer timer) {
+        this.interaction = interaction;
+        this.timer = timer;
+    }
+
+    /**
+     * Records what the response shows, see {@link InteractionTimer#describe(long, int)}.
+     */
+    public void describe(long view, int pokemonId) {
+        timer.describe(view, pokemonId);
+    }
+
+    /**
+     * Replies with a text message.
+     * <br>If the interaction was already deferred, the message is sent as a follow-up, which is ephemeral only if
+     * the deferral was.
+     */
+    public void reply(String content, boolean ephemeral) {
+        if (claim()) {
+            interaction.reply(content).setEphemeral(ephemeral).queue(timer.onSuccess(), timer.onFailure());
+        }
+        else {
+            interaction.getHook().sendMessage(content).setEphemeral(ephemeral).queue(timer.onSuccess(), timer.onFailure());
+        }
+    }
+
+    /**
+     * Replies with a new components v2 message.
+     *
+     * @param onSent
+     *        Called with the hook of the interaction once the message was sent, or null
+     */
+    public void replyComponents(Collection<? extends MessageTopLevelComponent> components, Consumer<? super InteractionHook> onSent) {
+        if (claim()) {
+            interaction.replyComponents(components)
+                .useComponentsV2()
+                .queue(timer.onSuccess(onSent), timer.onFailure());
+        }
+        else {
+            editOriginal(components, onSent, null);
+        }
+    }
+
+    public void replyComponents(MessageTopLevelComponent component, Consumer<? super InteractionHook> onSent) {
+        replyComponents(List.of(component), onSent);
+    }
+
+    /**
+     * Replaces the components of the message the interacted component belongs to.
+     *
+     * @param onSent
+     *        Called with the hook of the interaction once the message was edited, or null
+     *
+     * @throws IllegalStateException
+     *         If the interaction did not come from a message component
+     */
+    public void editComponents(Collection<? extends MessageTopLevelComponent> components, Consumer<? super InteractionHook> onSent) {
+        editComponents(components, onSent, null);
+    }
+
+    /**
+     * Replaces the components of the message the interacted component belongs to.
+     *
+     * @param onSent
+     *        Called with the hook of the interaction once the message was edited, or null
+     * @param onFailure
+     *        Called if the edit failed, or null
+     *
+     * @throws IllegalStateException
+     *         If the interaction did not come from a message component
+     */
+    public void editComponents(Collection<? extends MessageTopLevelComponent> components,
+                               Consumer<? super InteractionHook> onSent, Consumer<? super Throwable> onFailure) {
+        IMessageEditCallback callback = getMessageEditCallback();
+        if (claim()) {
+            callback.editComponents(components)
+                .useComponentsV2()
+                .queue(timer.onSuccess(onSent), timer.onFailure(onFailure));
+        }
+        else {
+            editOriginal(components, onSent, onFailure);
+        }
+    }
+
+    public void editComponents(MessageTopLevelComponent component, Consumer<? super InteractionHook> onSent) {
+        editComponents(List.of(component), onSent);
+    }
+
+    /**
+     * Acknowledges the interaction without changing its message, e.g. because a newer interaction replaces the
+     * message anyway. Does nothing if the interaction was deferred already.
+     *
+     * @throws IllegalStateException
+     *         If the interaction did not come from a message component
+     */
+    public void acknowledgeEdit() {
+        IMessageEditCallback callback = getMessageEditCallback();
+        if (claim()) {
+            callback.deferEdit().queue(timer.onSuccess(), timer.onFailure());
+        }
+    }
+
+    /**
+     * @return The routes an edit of the interaction's message goes through: the interaction callback, or the
+     *         webhook of the interaction once it was deferred
+     */
+    Route.CompiledRoute[] getEditRoutes() {
+        String token = interaction.getToken();
+        return new Route.CompiledRoute[] {
+            Route.Interactions.CALLBACK.compile(interaction.getId(), token),
+            Route.Interactions.EDIT_ORIGINAL.compile(interaction.getJDA().getSelfUser().getApplicationId(), token)
+        };
+    }
+
+    private IMessageEditCallback getMessageEditCallback() {
+        if (!(interaction instanceof IMessageEditCallback)) {
+            throw new IllegalStateException("Only component interactions can edit their message");
+        }
+
+        return (IMessageEditCallback) interaction;
+    }
+
+    private void editOriginal(Collection<? extends MessageTopLevelComponent> components,
+                              Consumer<? super InteractionHook> onSent, Consumer<? super Throwable> onFailure) {
+        InteractionHook hook = interaction.getHook();
+        hook.editOriginalComponents(components)
+            .useComponentsV2()
+            .queue(timer.onSuccess(message -> {
+                if (onSent != null) {
+                    onSent.accept(hook);
+                }
+            }), timer.onFailure(onFailure));
+    }
+
+    /**
+     * @return Whether the handler may answer the interaction directly, false if it was deferred already
+     */
+    private boolean claim() {
+        return state.compareAndSet(PENDING, RESPONDED);
+    }
+
+    /**
+     * Called by the dispatcher when the deadline approaches.
+     *
+     * @return Whether the interaction still needed to be deferred
+     */
+    boolean claimDeferral() {
+        return state.compareAndSet(PENDING, DEFERRED);
+    }
+
+    boolean isAnswered() {
+        return state.get() != PENDING;
+    }
+}
@@ -0,0 +1,167 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.entities.ISnowflake;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import net.dv8tion.jda.api.requests.RestAction;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Measures a single interaction, from the moment the listener receives it until Discord has accepted the response.
+ *
+ * <p>Pass {@link #onSuccess()} and {@link #onFailure()} to the {@code queue(...)} call of the response:
+ * <pre>{@code
+ * event.reply("...").queue(timer.onSuccess(), timer.onFailure());
+ * }</pre>
+ */
+public class InteractionTimer
+{
+    // Discord drops interactions that haven't been responded to within 3 seconds of their creation
+    public static final long ACK_DEADLINE_MILLIS = 3000;
+
+    private final BotMetrics metrics;
+    // Null if usage isn't logged
+    private final UsageLog usageLog;
+    private final String type;
+    private final String name;
+    private final long createdAtMillis;
+    private final long startNanos = System.nanoTime();
+
+    // Set once the interaction was deferred, the deadline only applies to the first response
+    private volatile boolean acknowledged;
+    // What the response shows, for the usage log
+    private volatile long view = ComponentId.INVALID;
+    private volatile int pokemonId;
+
+    /**
+     * @param type
+     *        The kind of interaction, e.g. "slash", "button" or "autocomplete"
+     * @param name
+     *        The command or button action. Keep the number of distinct names small, every name is its own time series.
+     */
+    public InteractionTimer(BotMetrics metrics, ISnowflake interaction, String type, String name) {
+        this(metrics, null, interaction, type, name);
+    }
+
+    /**
+     * @param usageLog
+     *        Records the interaction once it is answered, or null
+     */
+    public InteractionTimer(BotMetrics metrics, UsageLog usageLog, ISnowflake interaction, String type, String name) {
+        this.metrics = metrics;
+        this.usageLog = usageLog;
+        this.type = type;
+        this.name = name;
+        this.createdAtMillis = interaction.getTimeCreated().toInstant().toEpochMilli();
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    /**
+     * Records what the response shows in the {@link UsageLog}.
+     *
+     * @param view
+     *        The shown view as packed {@link ComponentId}, or {@link ComponentId#INVALID}
+     * @param pokemonId
+     *        The pokemon the interaction is about, or 0
+     */
+    public void describe(long view, int pokemonId) {
+        this.view = view;
+        this.pokemonId = pokemonId;
+    }
+
+    public <T> Consumer<T> onSuccess() {
+        return onSuccess(null);
+    }
+
+    /**
+     * @param next
+     *        Called with the result after it was recorded, or null
+     */
+    public <T> Consumer<T> onSuccess(Consumer<? super T> next) {
+        return result -> {
+            record("success");
+            if (!acknowledged && System.currentTimeMillis() - createdAtMillis > ACK_DEADLINE_MILLIS) {
+                missedDeadline();
+            }
+
+            if (next != null) {
+                next.accept(result);
+            }
+        };
+    }
+
+    /**
+     * Pass to {@code queue(...)} of a deferral. The interaction is still timed until the deferred response is sent.
+     */
+    public <T> Consumer<T> onDeferred() {
+        return result -> {
+            acknowledged = true;
+            if (System.currentTimeMillis() - createdAtMillis > ACK_DEADLINE_MILLIS) {
+                missedDeadline();
+            }
+
+            metrics.counter("pokedex_interaction_deferrals_total",
+                    "Interactions that were deferred because they weren't answered in time",
+                    "type", type, "name", name)
+                .increment();
+        };
+    }
+
+    /**
+     * Records that the interaction was turned away because too many interactions were in flight.
+     */
+    public void rejected() {
+        metrics.counter("pokedex_interaction_rejections_total",
+                "Interactions answered with a busy message because too many interactions were in flight",
+                "type", type, "name", name)
+            .increment();
+    }
+
+    public Consumer<Throwable> onFailure() {
+        return onFailure(null);
+    }
+
+    /**
+     * @param next
+     *        Called with the error after it was recorded and logged, or null
+     */
+    public Consumer<Throwable> onFailure(Consumer<? super Throwable> next) {
+        return error -> {
+            record("failure");
+            // Discord forgets interactions once the deadline has passed, responding afterwards fails with this error
+            if (error instanceof ErrorResponseException
+                    && ((ErrorResponseException) error).getErrorResponse() == ErrorResponse.UNKNOWN_INTERACTION) {
+                missedDeadline();
+            }
+
+            RestAction.getDefaultFailure().accept(error);
+            if (next != null) {
+                next.accept(error);
+            }
+        };
+    }
+
+    private void record(String outcome) {
+        long duration = System.nanoTime() - startNanos;
+        metrics.histogram("pokedex_interaction_duration_seconds",
+                "Time from receiving an interaction until Discord accepted the response",
+                "type", type, "name", name, "outcome", outcome)
+            .record(duration, TimeUnit.NANOSECONDS);
+
+        if (usageLog != null) {
+            usageLog.record(UsageLog.Command.of(type, name), "success".equals(outcome), view, pokemonId, duration, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void missedDeadline() {
+        metrics.counter("pokedex_interaction_ack_deadline_misses_total",
+                "Interactions that were not responded to within " + ACK_DEADLINE_MILLIS + "ms of their creation",
+                "type", type, "name", name)
+            .increment();
+    }
+}
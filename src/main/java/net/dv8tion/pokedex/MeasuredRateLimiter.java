@@ -0,0 +1,125 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.requests.Response;
+import net.dv8tion.jda.api.requests.RestRateLimiter;
+import net.dv8tion.jda.api.requests.Route;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps the rate limiter of JDA's requester to record how long requests wait before they are sent.
+ *
+ * <p>Requests wait when their rate limit bucket (or the global limit) is exhausted, so the recorded time is
+ * how much latency rate limits add to a response. Requests that are retried after a 429 are counted separately.
+ * The rate limit state of every response is passed on to a {@link RateLimitTracker}.
+ *
+ * <pre>{@code
+ * builder.setRestConfig(new RestConfig().setRateLimiterFactory(
+ *     config -> new MeasuredRateLimiter(new SequentialRestRateLimiter(config), metrics, rateLimits)));
+ * }</pre>
+ */
+public class MeasuredRateLimiter implements RestRateLimiter
+{
+    private final RestRateLimiter delegate;
+    private final BotMetrics metrics;
+    private final RateLimitTracker rateLimits;
+
+    public MeasuredRateLimiter(RestRateLimiter delegate, BotMetrics metrics, RateLimitTracker rateLimits) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.rateLimits = rateLimits;
+    }
+
+    @Override
+    public void enqueue(Work task) {
+        delegate.enqueue(new MeasuredWork(task));
+    }
+
+    @Override
+    public void stop(boolean shutdown, Runnable callback) {
+        delegate.stop(shutdown, callback);
+    }
+
+    @Override
+    public boolean isStopped() {
+        return delegate.isStopped();
+    }
+
+    @Override
+    public int cancelRequests() {
+        return delegate.cancelRequests();
+    }
+
+    private class MeasuredWork implements Work {
+        private final Work task;
+        private final long enqueuedAtNanos = System.nanoTime();
+        // Only touched by the rate limiter, which never executes the same work concurrently
+        private boolean executed;
+
+        private MeasuredWork(Work task) {
+            this.task = task;
+        }
+
+        @Override
+        public Route.CompiledRoute getRoute() {
+            return task.getRoute();
+        }
+
+        @Override
+        public JDA getJDA() {
+            return task.getJDA();
+        }
+
+        @Override
+        public Response execute() {
+            // Route templates like "channels/{channel_id}/messages" keep the number of series small
+            String route = task.getRoute().getBaseRoute().getRoute();
+            if (!executed) {
+                executed = true;
+                metrics.histogram("pokedex_rest_queue_wait_seconds",
+                        "Time requests waited on rate limits before being sent",
+                        "route", route)
+                    .record(System.nanoTime() - enqueuedAtNanos, TimeUnit.NANOSECONDS);
+            }
+            else {
+                metrics.counter("pokedex_rest_retries_total",
+                        "Requests sent again after hitting a rate limit or a server error",
+                        "route", route)
+                    .increment();
+            }
+
+            Response response = task.execute();
+            if (response != null) {
+                rateLimits.update(task.getRoute(), response);
+            }
+
+            return response;
+        }
+
+        @Override
+        public boolean isSkipped() {
+            return task.isSkipped();
+        }
+
+        @Override
+        public boolean isDone() {
+            return task.isDone();
+        }
+
+        @Override
+        public boolean isPriority() {
+            return task.isPriority();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return task.isCancelled();
+        }
+
+        @Override
+        public void cancel() {
+            task.cancel();
+        }
+    }
+}
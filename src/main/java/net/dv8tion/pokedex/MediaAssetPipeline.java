@@ -0,0 +1,163 @@
+package net.dv8tion.pokedex;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Builds the {@link MediaManifest} of the media gallery ahead of time.
+ *
+ * <p>Hashes every gallery file to find identical pictures, reads the dimensions from the AVIF headers and flags
+ * files that are too large to be worth uploading with a card. Run {@link #main(String[])} (or the
+ * {@code mediaManifest} gradle task) whenever the gallery changes.
+ */
+public class MediaAssetPipeline
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MediaAssetPipeline.class);
+
+    /** Files above this size are left out of the galleries. The p99 of the gallery is around 100 KiB. */
+    public static final long DEFAULT_MAX_FILE_BYTES = 256 * 1024;
+
+    // The dimensions are stored in the "ispe" property near the start of the file
+    private static final int HEADER_SCAN_BYTES = 4096;
+
+    private final Path root;
+    private final long maxFileBytes;
+
+    public MediaAssetPipeline(Path root, long maxFileBytes) {
+        this.root = root;
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    public MediaManifest build() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root))
+        {
+            files = stream
+                .filter(Files::isRegularFile)
+                .filter(path -> path.getFileName().toString().contains("--compressed"))
+                .sorted()
+                .toList();
+        }
+
+        List<ScannedFile> scanned;
+        try {
+            scanned = files.parallelStream().map(this::scan).toList();
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        // The first path (in sorted order) of every hash is the canonical copy
+        Map<String, String> canonicalPaths = new HashMap<>();
+        List<MediaManifest.Entry> entries = new ArrayList<>(scanned.size());
+        for (ScannedFile file : scanned) {
+            String canonical = canonicalPaths.putIfAbsent(file.sha256, file.path);
+            entries.add(new MediaManifest.Entry(file.path, file.bytes, file.width, file.height, file.sha256, canonical, file.bytes > maxFileBytes));
+        }
+
+        return new MediaManifest(entries);
+    }
+
+    private ScannedFile scan(Path file) {
+        try (InputStream in = Files.newInputStream(file))
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] header = new byte[HEADER_SCAN_BYTES];
+            int headerLength = in.readNBytes(header, 0, header.length);
+            digest.update(header, 0, headerLength);
+
+            long bytes = headerLength;
+            byte[] chunk = new byte[8192];
+            for (int read; (read = in.read(chunk)) != -1; bytes += read) {
+                digest.update(chunk, 0, read);
+            }
+
+            int[] dimensions = readDimensions(ByteBuffer.wrap(header, 0, headerLength));
+            // Always '/' separated, regardless of the platform the manifest was built on
+            String path = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+            return new ScannedFile(path, bytes, dimensions[0], dimensions[1], HexFormat.of().formatHex(digest.digest()));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return Width and height from the first "ispe" (image spatial extents) box, or zeros if there is none
+     */
+    static int[] readDimensions(ByteBuffer header) {
+        // size (4) "ispe" (4) version and flags (4) width (4) height (4)
+        for (int i = header.position() + 4; i + 16 <= header.limit(); i++) {
+            if (header.get(i) == 'i' && header.get(i + 1) == 's' && header.get(i + 2) == 'p' && header.get(i + 3) == 'e') {
+                return new int[] {header.getInt(i + 8), header.getInt(i + 12)};
+            }
+        }
+
+        return new int[2];
+    }
+
+    /**
+     * Writes the manifest and logs how much the deduplication saves.
+     *
+     * @param args
+     *        Optionally, the path of the manifest to write (defaults to {@link MediaManifest#DEFAULT_FILE})
+     *        and the maximum file size in bytes
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = args.length > 0 ? Paths.get(args[0]) : MediaManifest.DEFAULT_FILE;
+        long maxFileBytes = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_MAX_FILE_BYTES;
+
+        long start = System.nanoTime();
+        MediaAssetPipeline pipeline = new MediaAssetPipeline(Paths.get(PokemonData.Images.LOCAL_MEDIA_IMAGES_FOLDER), maxFileBytes);
+        MediaManifest manifest = pipeline.build();
+        manifest.write(file);
+
+        List<MediaManifest.Entry> entries = manifest.getEntries();
+        long totalBytes = entries.stream().mapToLong(MediaManifest.Entry::getBytes).sum();
+        long duplicates = entries.stream().filter(entry -> entry.getDuplicateOf() != null).count();
+        List<MediaManifest.Entry> oversized = entries.stream()
+            .filter(entry -> entry.isOversized() && entry.getDuplicateOf() == null)
+            .toList();
+
+        LOG.info("Wrote media manifest to {} in {}ms: {} files, {} duplicates, {} oversized, {} of {} bytes left to upload",
+            file.toAbsolutePath(), (System.nanoTime() - start) / 1_000_000,
+            entries.size(), duplicates, oversized.size(), manifest.getGalleryBytes(), totalBytes);
+        if (!oversized.isEmpty()) {
+            LOG.warn("Oversized media files, re-encode them smaller to show them again: {}", oversized.stream()
+                .map(entry -> entry.getPath() + " (" + entry.getBytes() + " bytes, " + entry.getWidth() + "x" + entry.getHeight() + ")")
+                .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private static class ScannedFile {
+        private final String path;
+        private final long bytes;
+        private final int width;
+        private final int height;
+        private final String sha256;
+
+        private ScannedFile(String path, long bytes, int width, int height, String sha256) {
+            this.path = path;
+            this.bytes = bytes;
+            this.width = width;
+            this.height = height;
+            this.sha256 = sha256;
+        }
+    }
+}
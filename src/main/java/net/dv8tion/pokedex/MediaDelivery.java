@@ -0,0 +1,261 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.components.mediagallery.MediaGalleryItem;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.utils.FileUpload;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides how the media gallery images of a pokemon card reach Discord.
+ *
+ * <ul>
+ *     <li>{@link Mode#HOSTED} references the copies hosted at {@link MyTestBot#HOSTED_ASSETS_ROOT}. Nothing is uploaded.</li>
+ *     <li>{@link Mode#UPLOAD} uploads the local files with every card.</li>
+ *     <li>{@link Mode#REUSE} uploads a file the first time it is shown, then references the Discord CDN url of
+ *         that attachment until it expires.</li>
+ * </ul>
+ *
+ * The mode is read from the {@code MEDIA_DELIVERY_MODE} environment variable and defaults to {@link Mode#REUSE}.
+ * Remembered CDN urls are kept in a {@link CdnUrlCache}, which can be shared between shard processes.
+ *
+ * <p>Every media folder uses the same file names ({@code 00000000--compressed.avif}, ...), so urls are remembered
+ * by {@link PokemonData.Images#getMediaKey(Path)}: the content hash from the {@link MediaManifest}, so a picture
+ * shown for several pokemon is uploaded once, or else the path within the media gallery. Files are uploaded under
+ * a name derived from that key.
+ */
+public class MediaDelivery
+{
+    public static final String MODE_ENVIRONMENT_VARIABLE = "MEDIA_DELIVERY_MODE";
+
+    /** Starts a card on a random page of the pokemon's gallery */
+    public static final int RANDOM_PAGE = -1;
+
+    // Discord signs attachment urls with an "ex" (expiry) parameter. Stop using them a little early.
+    private static final long EXPIRY_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    // Used if an url has no readable expiry
+    private static final long DEFAULT_URL_LIFETIME_MILLIS = TimeUnit.HOURS.toMillis(20);
+
+    private final Mode mode;
+
+    private final CdnUrlCache cdnUrls;
+
+    private final LongAdder uploads = new LongAdder();
+    private final LongAdder uploadBytes = new LongAdder();
+    private final LongAdder cdnUrlHits = new LongAdder();
+    private final LongAdder cdnUrlMisses = new LongAdder();
+
+    public MediaDelivery(Mode mode) {
+        this(mode, new InMemoryCdnUrlCache());
+    }
+
+    public MediaDelivery(Mode mode, CdnUrlCache cdnUrls) {
+        this.mode = mode;
+        this.cdnUrls = cdnUrls;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Selects a page of gallery images for the provided pokemon, delivered according to the configured {@link Mode}.
+     * <br>Pokemon without a media gallery are shown with their artwork instead.
+     *
+     * @param page
+     *        The page of {@link PokemonData.Images#getMediaImagePage(int, int)} to show, or {@link #RANDOM_PAGE}
+     */
+    public Gallery selectGallery(PokemonData pokemonData, int imageCount, int page) {
+        PokemonData.Images images = pokemonData.getImages();
+        if (!images.hasMediaImages()) {
+            String artworkUrl = images.getHighResUrl() != null ? images.getHighResUrl() : images.getThumbnailUrl();
+            return new Gallery(List.of(MediaGalleryItem.fromUrl(artworkUrl)), Map.of(), 0, 1);
+        }
+
+        int pageCount = images.getMediaPageCount(imageCount);
+        page = page == RANDOM_PAGE ? ThreadLocalRandom.current().nextInt(pageCount) : Math.floorMod(page, pageCount);
+
+        if (mode == Mode.HOSTED) {
+            List<MediaGalleryItem> items = images.getMediaImageUrlPage(imageCount, page)
+                .stream()
+                .map(MediaGalleryItem::fromUrl)
+                .toList();
+
+            return new Gallery(items, Map.of(), page, pageCount);
+        }
+
+        long now = System.currentTimeMillis();
+        // Upload name -> cache key of the files uploaded with this card
+        Map<String, String> uploadedKeys = new HashMap<>();
+        List<MediaGalleryItem> items = new ArrayList<>(imageCount);
+        for (Path path : images.getMediaImagePage(imageCount, page)) {
+            String key = images.getMediaKey(path);
+            String cdnUrl = mode == Mode.REUSE ? getCdnUrl(key, now) : null;
+            if (cdnUrl != null) {
+                items.add(MediaGalleryItem.fromUrl(cdnUrl));
+            }
+            else {
+                String uploadName = getUploadName(key, path);
+                items.add(MediaGalleryItem.fromFile(FileUpload.fromData(path, uploadName)));
+                uploads.increment();
+                uploadBytes.add(path.toFile().length());
+                uploadedKeys.put(uploadName, key);
+            }
+        }
+
+        return new Gallery(items, mode == Mode.REUSE ? uploadedKeys : Map.of(), page, pageCount);
+    }
+
+    public int getCachedUrlCount() {
+        return cdnUrls.size();
+    }
+
+    /**
+     * @return Number of media files attached to responses
+     */
+    public long getUploadCount() {
+        return uploads.sum();
+    }
+
+    /**
+     * @return Total size of the media files attached to responses
+     */
+    public long getUploadBytes() {
+        return uploadBytes.sum();
+    }
+
+    /**
+     * @return Number of images in {@link Mode#REUSE} that were served from a remembered CDN url
+     */
+    public long getCdnUrlHits() {
+        return cdnUrlHits.sum();
+    }
+
+    /**
+     * @return Number of images in {@link Mode#REUSE} that had to be uploaded
+     */
+    public long getCdnUrlMisses() {
+        return cdnUrlMisses.sum();
+    }
+
+    /**
+     * @return A file name that is unique within the media gallery and that Discord keeps as is
+     */
+    private static String getUploadName(String key, Path path) {
+        if (key.indexOf('/') != -1) {
+            return key.replace('/', '-');
+        }
+
+        // A content hash, Discord needs the extension to show the file as an image
+        String fileName = path.getFileName().toString();
+        return key + fileName.substring(fileName.lastIndexOf('.'));
+    }
+
+    private String getCdnUrl(String key, long now) {
+        String cdnUrl = cdnUrls.get(key, now);
+        if (cdnUrl == null) {
+            cdnUrlMisses.increment();
+            return null;
+        }
+
+        cdnUrlHits.increment();
+        return cdnUrl;
+    }
+
+    private void rememberAttachments(Message message, Map<String, String> uploadedKeys) {
+        long now = System.currentTimeMillis();
+        for (Message.Attachment attachment : message.getAttachments()) {
+            String key = uploadedKeys.get(attachment.getFileName());
+            if (key != null) {
+                String url = attachment.getUrl();
+                cdnUrls.put(key, url, getExpiry(url, now));
+            }
+        }
+    }
+
+    private static long getExpiry(String url, long now) {
+        // https://cdn.discordapp.com/attachments/.../file.avif?ex=6650a1b2&is=...&hm=...
+        int start = url.indexOf("ex=");
+        if (start != -1) {
+            start += 3;
+            int end = url.indexOf('&', start);
+            try {
+                long expirySeconds = Long.parseLong(url.substring(start, end == -1 ? url.length() : end), 16);
+                return TimeUnit.SECONDS.toMillis(expirySeconds) - EXPIRY_MARGIN_MILLIS;
+            }
+            catch (NumberFormatException ignored) {
+                // Fall through to the default lifetime
+            }
+        }
+
+        return now + DEFAULT_URL_LIFETIME_MILLIS;
+    }
+
+    public enum Mode {
+        HOSTED,
+        UPLOAD,
+        REUSE;
+
+        public static Mode fromEnvironment() {
+            String value = System.getenv(MODE_ENVIRONMENT_VARIABLE);
+            if (value == null || value.isBlank()) {
+                return REUSE;
+            }
+
+            return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * The gallery items selected for a single card.
+     */
+    public class Gallery {
+        private final List<MediaGalleryItem> items;
+        // Upload name -> cache key, of the files whose CDN urls should be remembered
+        private final Map<String, String> uploadedKeys;
+        private final int page;
+        private final int pageCount;
+
+        private Gallery(List<MediaGalleryItem> items, Map<String, String> uploadedKeys, int page, int pageCount) {
+            this.items = items;
+            this.uploadedKeys = uploadedKeys;
+            this.page = page;
+            this.pageCount = pageCount;
+        }
+
+        public List<MediaGalleryItem> getItems() {
+            return items;
+        }
+
+        public int getPage() {
+            return page;
+        }
+
+        public int getPageCount() {
+            return pageCount;
+        }
+
+        /**
+         * @return The page following this one, wrapping around to the first page
+         */
+        public int getNextPage() {
+            return (page + 1) % pageCount;
+        }
+
+        /**
+         * Pass to {@code queue(...)} of the reply or edit that carried this gallery.
+         * <br>If files were uploaded in {@link Mode#REUSE}, the resulting message is fetched once so the
+         * CDN urls of the new attachments can be used by later cards.
+         */
+        public void onSent(InteractionHook hook) {
+            if (!uploadedKeys.isEmpty()) {
+                hook.retrieveOriginal().queue(message -> rememberAttachments(message, uploadedKeys));
+            }
+        }
+    }
+}
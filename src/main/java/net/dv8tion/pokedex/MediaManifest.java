@@ -0,0 +1,234 @@
+package net.dv8tion.pokedex;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Inventory of the media gallery, written by {@link MediaAssetPipeline}.
+ *
+ * <p>Lists every gallery file with its size, dimensions and content hash. Files with the same content point at one
+ * canonical copy, so a picture shown for several pokemon is uploaded (and its CDN url remembered) only once, and a
+ * pokemon never shows the same picture twice. Oversized files are flagged and left out of the galleries.
+ *
+ * <p>The manifest is a tab-separated text file:
+ * <pre>
+ * # path	bytes	width	height	sha256	duplicate-of	flags
+ * Abra/0282b2f3...--compressed.avif	12303	268	184	9f86d08...	-	-
+ * </pre>
+ * Paths are relative to {@link PokemonData.Images#LOCAL_MEDIA_IMAGES_FOLDER}.
+ */
+public class MediaManifest
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MediaManifest.class);
+
+    public static final Path DEFAULT_FILE = Paths.get("pokemon-data/media-manifest.tsv");
+
+    static final String HEADER = "# path\tbytes\twidth\theight\tsha256\tduplicate-of\tflags";
+    static final String NONE = "-";
+    static final String OVERSIZED = "oversized";
+
+    // Sorted by path
+    private final List<Entry> entries;
+    // Folder name -> gallery file names, relative to that folder
+    private final Map<String, String[]> galleries = new HashMap<>();
+    // Path -> content hash
+    private final Map<String, String> hashes = new HashMap<>();
+
+    MediaManifest(List<Entry> entries) {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(Entry::getPath));
+        this.entries = Collections.unmodifiableList(sorted);
+
+        Map<String, LinkedHashSet<String>> folders = new HashMap<>();
+        for (Entry entry : this.entries) {
+            hashes.put(entry.getPath(), entry.getSha256());
+            LinkedHashSet<String> gallery = folders.computeIfAbsent(entry.getFolder(), folder -> new LinkedHashSet<>());
+            if (!entry.isOversized()) {
+                // Duplicates within a folder collapse into one entry, duplicates across folders share the file
+                gallery.add(relativize(entry.getFolder(), entry.getCanonicalPath()));
+            }
+        }
+        folders.forEach((folder, gallery) -> galleries.put(folder, gallery.toArray(new String[0])));
+    }
+
+    /**
+     * @return The manifest, or null if it is missing or unreadable
+     */
+    public static MediaManifest read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try {
+            List<Entry> entries = new ArrayList<>();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] columns = line.split("\t");
+                if (columns.length != 7) {
+                    throw new IllegalArgumentException("Expected 7 columns: " + line);
+                }
+
+                entries.add(new Entry(
+                    columns[0],
+                    Long.parseLong(columns[1]),
+                    Integer.parseInt(columns[2]),
+                    Integer.parseInt(columns[3]),
+                    columns[4],
+                    NONE.equals(columns[5]) ? null : columns[5],
+                    OVERSIZED.equals(columns[6])
+                ));
+            }
+
+            return new MediaManifest(entries);
+        }
+        catch (IOException | IllegalArgumentException e) {
+            LOG.warn("Ignoring media manifest {}, it could not be read", file, e);
+            return null;
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        // Written next to the target and moved into place, so readers never see a partial manifest
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8))
+        {
+            out.write(HEADER);
+            out.write('\n');
+            for (Entry entry : entries) {
+                out.write(String.join("\t",
+                    entry.path,
+                    String.valueOf(entry.bytes),
+                    String.valueOf(entry.width),
+                    String.valueOf(entry.height),
+                    entry.sha256,
+                    entry.duplicateOf == null ? NONE : entry.duplicateOf,
+                    entry.oversized ? OVERSIZED : NONE
+                ));
+                out.write('\n');
+            }
+        }
+
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param  folder
+     *         The media folder of a pokemon, e.g. {@code Abra}
+     *
+     * @return Names of the gallery files to show, relative to that folder, or null if the manifest doesn't know
+     *         the folder. Files shared with other pokemon are referenced as {@code ../Other/file.avif}.
+     */
+    public String[] getGalleryFileNames(String folder) {
+        String[] fileNames = galleries.get(folder);
+        return fileNames == null ? null : fileNames.clone();
+    }
+
+    /**
+     * @param  path
+     *         Relative to the media gallery root, e.g. {@code Abra/0282b2f3...--compressed.avif}
+     *
+     * @return The SHA-256 of the file's content, or null if the manifest doesn't list it
+     */
+    public String getSha256(String path) {
+        return hashes.get(path);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return Total size of the files left to upload once duplicates and oversized files are removed
+     */
+    public long getGalleryBytes() {
+        return entries.stream()
+            .filter(entry -> entry.duplicateOf == null && !entry.oversized)
+            .mapToLong(Entry::getBytes)
+            .sum();
+    }
+
+    private static String relativize(String folder, String path) {
+        return path.startsWith(folder + "/") ? path.substring(folder.length() + 1) : "../" + path;
+    }
+
+    public static class Entry {
+        private final String path;
+        private final long bytes;
+        private final int width;
+        private final int height;
+        private final String sha256;
+        private final String duplicateOf;
+        private final boolean oversized;
+
+        Entry(String path, long bytes, int width, int height, String sha256, String duplicateOf, boolean oversized) {
+            if (path.indexOf('/') <= 0) {
+                throw new IllegalArgumentException("Expected folder/file: " + path);
+            }
+
+            this.path = path;
+            this.bytes = bytes;
+            this.width = width;
+            this.height = height;
+            this.sha256 = sha256;
+            this.duplicateOf = duplicateOf;
+            this.oversized = oversized;
+        }
+
+        /**
+         * @return The path relative to the media gallery root, e.g. {@code Abra/0282b2f3...--compressed.avif}
+         */
+        public String getPath() {
+            return path;
+        }
+
+        public String getFolder() {
+            return path.substring(0, path.indexOf('/'));
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return The width in pixels, or 0 if unknown
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * @return The height in pixels, or 0 if unknown
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        /**
+         * @return The path of the file with identical content that is used instead, or null if this is that file
+         */
+        public String getDuplicateOf() {
+            return duplicateOf;
+        }
+
+        public String getCanonicalPath() {
+            return duplicateOf == null ? path : duplicateOf;
+        }
+
+        public boolean isOversized() {
+            return oversized;
+        }
+    }
+}
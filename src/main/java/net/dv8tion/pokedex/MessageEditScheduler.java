@@ -0,0 +1,210 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.components.MessageTopLevelComponent;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Orders the edits of each message, so rapid clicks on its buttons (e.g. mashing "Next") don't race each other
+ * to Discord and every intermediate page isn't sent just to be replaced.
+ *
+ * <ul>
+ *     <li>At most one edit per message is in flight. Edits scheduled meanwhile wait until it completes.</li>
+ *     <li>Only the latest waiting edit is sent. The interactions of the ones it supersedes are acknowledged
+ *         without a payload, and their components are never rendered.</li>
+ *     <li>If the {@link RateLimitTracker} reports the buckets of the edit's routes (or the global limit) as
+ *         exhausted, the edit waits for their reset instead of running into a 429, and keeps absorbing newer
+ *         clicks meanwhile.</li>
+ * </ul>
+ *
+ * Waiting interactions are still deferred by the {@link InteractionDispatcher} before their deadline, the edit
+ * then goes through their {@link InteractionHook}.
+ */
+public class MessageEditScheduler
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MessageEditScheduler.class);
+
+    private final RateLimitTracker rateLimits;
+    // Sends waiting edits, off JDA's callback threads
+    private final ScheduledExecutorService executor;
+
+    // Message id -> waiting edit, present while an edit of the message is in flight
+    private final Map<Long, Slot> slots = new HashMap<>();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private final LongAdder delayed = new LongAdder();
+
+    public MessageEditScheduler(BotMetrics metrics, RateLimitTracker rateLimits) {
+        this.rateLimits = rateLimits;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "message-edit-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        String help = "Message edits requested by button clicks, by what happened to them";
+        metrics.counter("pokedex_message_edits_total", help, sent::sum, "outcome", "sent");
+        metrics.counter("pokedex_message_edits_total", help, superseded::sum, "outcome", "superseded");
+        metrics.counter("pokedex_message_edits_delayed_total", "Message edits held back until a rate limit reset", delayed::sum);
+    }
+
+    /**
+     * Edits the message of a component interaction, once the edits scheduled before it for the same message
+     * are done.
+     *
+     * @param renderer
+     *        Renders the new components, only called if the edit is sent
+     * @param onSent
+     *        Called with the hook of the interaction once the message was edited, or null
+     */
+    public void schedule(long messageId, InteractionResponse response,
+                         Supplier<? extends Collection<? extends MessageTopLevelComponent>> renderer,
+                         Consumer<? super InteractionHook> onSent) {
+        Edit edit = new Edit(messageId, response, renderer, onSent);
+        Edit replaced = null;
+        synchronized (slots) {
+            Slot slot = slots.get(messageId);
+            if (slot == null) {
+                slots.put(messageId, new Slot());
+            }
+            else {
+                replaced = slot.waiting;
+                slot.waiting = edit;
+                edit = null;
+            }
+        }
+
+        if (replaced != null) {
+            supersede(replaced);
+        }
+        if (edit != null) {
+            send(edit);
+        }
+    }
+
+    private void send(Edit edit) {
+        try {
+            long delay = rateLimits.getDelayMillis(edit.response.getEditRoutes());
+            if (delay > 0) {
+                delay(edit, delay);
+                return;
+            }
+
+            Collection<? extends MessageTopLevelComponent> components = edit.renderer.get();
+            sent.increment();
+            edit.response.editComponents(
+                components,
+                hook -> {
+                    try {
+                        if (edit.onSent != null) {
+                            edit.onSent.accept(hook);
+                        }
+                    }
+                    finally {
+                        completed(edit.messageId);
+                    }
+                },
+                error -> completed(edit.messageId)
+            );
+        }
+        catch (RuntimeException e) {
+            // Neither callback runs for an edit that was never queued, don't leave the edits of the message waiting
+            completed(edit.messageId);
+            throw e;
+        }
+    }
+
+    private void delay(Edit edit, long delay) {
+        delayed.increment();
+        // Wait as the message's waiting edit, so clicks in the meantime replace it
+        Edit replaced = null;
+        synchronized (slots) {
+            Slot slot = slots.get(edit.messageId);
+            if (slot.waiting == null) {
+                slot.waiting = edit;
+            }
+            else {
+                replaced = edit;
+            }
+        }
+
+        if (replaced != null) {
+            supersede(replaced);
+        }
+        executor.schedule(() -> sendNext(edit.messageId), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void supersede(Edit edit) {
+        superseded.increment();
+        edit.response.acknowledgeEdit();
+    }
+
+    private void completed(long messageId) {
+        executor.execute(() -> sendNext(messageId));
+    }
+
+    private void sendNext(long messageId) {
+        Edit next;
+        synchronized (slots) {
+            Slot slot = slots.get(messageId);
+            next = slot.waiting;
+            slot.waiting = null;
+            if (next == null) {
+                slots.remove(messageId);
+            }
+        }
+
+        if (next != null) {
+            try {
+                send(next);
+            }
+            catch (RuntimeException e) {
+                LOG.error("Failed to edit message {}", messageId, e);
+                // Likely deferred by now, the dispatcher doesn't see this failure and won't answer it
+                fail(next);
+            }
+        }
+    }
+
+    private static void fail(Edit edit) {
+        try {
+            edit.response.reply(InteractionDispatcher.FAILURE_MESSAGE, true);
+        }
+        catch (RuntimeException e) {
+            LOG.error("Failed to report the failed edit of message {}", edit.messageId, e);
+        }
+    }
+
+    private static class Slot {
+        // The latest edit scheduled while another one was in flight, or null
+        private Edit waiting;
+    }
+
+    private static class Edit {
+        private final long messageId;
+        private final InteractionResponse response;
+        private final Supplier<? extends Collection<? extends MessageTopLevelComponent>> renderer;
+        private final Consumer<? super InteractionHook> onSent;
+
+        private Edit(long messageId, InteractionResponse response,
+                     Supplier<? extends Collection<? extends MessageTopLevelComponent>> renderer,
+                     Consumer<? super InteractionHook> onSent) {
+            this.messageId = messageId;
+            this.response = response;
+            this.renderer = renderer;
+            this.onSent = onSent;
+        }
+    }
+}
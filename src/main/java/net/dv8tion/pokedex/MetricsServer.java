@@ -0,0 +1,93 @@
+package net.dv8tion.pokedex;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Serves {@link BotMetrics#scrape()} at {@code /metrics} for Prometheus to scrape.
+ *
+ * <p>Listens on {@code METRICS_HOST}:{@code METRICS_PORT}, which default to {@code 127.0.0.1:9464}.
+ * Without a port, a process that runs only some of the shards listens on {@code 9464} plus its first shard id,
+ * so several processes (see {@link ShardConfig}) can run on the same host.
+ */
+public class MetricsServer
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsServer.class);
+
+    public static final String HOST_ENVIRONMENT_VARIABLE = "METRICS_HOST";
+    public static final String PORT_ENVIRONMENT_VARIABLE = "METRICS_PORT";
+
+    private static final int DEFAULT_PORT = 9464;
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+
+    public MetricsServer(BotMetrics metrics, InetSocketAddress address) throws IOException {
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext("/metrics", exchange -> respond(exchange, metrics));
+    }
+
+    /**
+     * @param shardConfig
+     *        The shards of this process, picks the default port
+     */
+    public static MetricsServer fromEnvironment(BotMetrics metrics, ShardConfig shardConfig) throws IOException {
+        String host = System.getenv(HOST_ENVIRONMENT_VARIABLE);
+        String port = System.getenv(PORT_ENVIRONMENT_VARIABLE);
+
+        InetSocketAddress address = new InetSocketAddress(
+            host == null || host.isBlank() ? "127.0.0.1" : host.trim(),
+            port == null || port.isBlank() ? getDefaultPort(shardConfig) : Integer.parseInt(port.trim())
+        );
+
+        return new MetricsServer(metrics, address);
+    }
+
+    /**
+     * @return {@code 9464}, plus the first shard id if the process runs only some of the shards
+     */
+    static int getDefaultPort(ShardConfig shardConfig) {
+        int[] shardIds = shardConfig.getShardIds();
+        return shardIds == null || shardIds.length == 0 ? DEFAULT_PORT : DEFAULT_PORT + Arrays.stream(shardIds).min().getAsInt();
+    }
+
+    public void start() {
+        server.start();
+        LOG.info("Serving metrics at http://{}:{}/metrics", server.getAddress().getHostString(), server.getAddress().getPort());
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, BotMetrics metrics) throws IOException {
+        try
+        {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = metrics.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody())
+            {
+                out.write(body);
+            }
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package net.dv8tion.pokedex;
 
 import net.dv8tion.jda.api.*;
+import net.dv8tion.jda.api.components.MessageTopLevelComponent;
 import net.dv8tion.jda.api.components.actionrow.ActionRow;
 import net.dv8tion.jda.api.components.buttons.Button;
 import net.dv8tion.jda.api.components.container.Container;
@@ -11,6 +12,7 @@ import net.dv8tion.jda.api.components.section.Section;
 import net.dv8tion.jda.api.components.separator.Separator;
 import net.dv8tion.jda.api.components.textdisplay.TextDisplay;
 import net.dv8tion.jda.api.components.thumbnail.Thumbnail;
+import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.emoji.Emoji;
 import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
@@ -18,145 +20,789 @@ import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.interactions.IntegrationType;
 import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import net.dv8tion.jda.api.interactions.commands.build.OptionData;
-import net.dv8tion.jda.api.utils.FileUpload;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.requests.SequentialRestRateLimiter;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 
 class MyTestBot extends ListenerAdapter {
     public static final String HOSTED_ASSETS_ROOT = "https://raw.githubusercontent.com/DV8FromTheWorld/discord-pokedex/refs/heads/main";
 
     private static final int POKEMON_PER_PAGE = 10;
+    private static final int MEDIA_IMAGES_PER_CARD = 4;
+    private static final int COMPACT_MEDIA_IMAGES_PER_CARD = 2;
+    private static final int COMPACT_DESCRIPTION_LENGTH = 200;
+    private static final Emoji MORE_IMAGES_EMOJI = Emoji.fromUnicode("\uD83D\uDD04");
+    // Each row is 3 components and a message may hold 40. The longest chain (Eevee's) has 9 pokemon.
+    private static final int MAX_EVOLUTION_CHAIN_ROWS = 12;
+    private static final String NOT_READY_MESSAGE = "The pokédex is still starting up, please try again in a moment.";
+    private static final int INTERACTION_WORKERS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final int MAX_INTERACTIONS_IN_FLIGHT = 256;
+    // Responses are rendered compact once half of the in-flight limit is used
+    private static final int COMPACT_ABOVE_IN_FLIGHT = MAX_INTERACTIONS_IN_FLIGHT / 2;
+    // Set in the render cache keys of compact renders
+    private static final long COMPACT_KEY = 1L << 62;
+    // Render cache keys hold the language ordinal in these bits
+    private static final int LANGUAGE_KEY_SHIFT = 56;
+    private static final long LANGUAGE_KEY_MASK = 0xFL << LANGUAGE_KEY_SHIFT;
+    // About 5 MB of navigation state. Messages not clicked for the ttl fall back to what their button ids encode.
+    private static final int MAX_SESSIONS = 1 << 16;
+    private static final long SESSION_TTL_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private static final Logger LOG = LoggerFactory.getLogger(MyTestBot.class);
 
     /*
         data sources: https://github.com/Purukitto/pokemon-data.json
         image sources: https://www.kaggle.com/datasets/vishalsubbiah/pokemon-images-and-types
      */
-    public Pokedex pokedex = new Pokedex();
+    // Replaced as a whole by reloadPokedex()
+    public volatile Pokedex pokedex;
+
+    // Completes once the pokedex is loaded and assigned to the field above
+    private final CompletableFuture<Pokedex> pokedexLoader;
+
+    // The pokedex data only changes on reload, so everything except a card's media gallery only needs to be rendered once.
+    // Every key has COMPACT_KEY set for the compact rendering and the language in the LANGUAGE_KEY_MASK bits, see cacheKey().
+    private final RenderCache<Container> pokedexPages = new RenderCache<>("pokedex-pages", 512,
+        key -> renderPokedex(Generation.fromNumber((int) (key >> 32) & 0xFF), (int) key, getMode(key), getLanguage(key)));
+    private final RenderCache<PokemonCardParts> pokemonCards = new RenderCache<>("pokemon-cards", 1024,
+        key -> renderPokemonCardParts((int) key, getMode(key), getLanguage(key)));
+    // Keyed by (packed query << 12) | page
+    private final RenderCache<Container> searchPages = new RenderCache<>("search-pages", 512,
+        key -> renderSearchPage(PokedexQuery.unpack((key & ~(COMPACT_KEY | LANGUAGE_KEY_MASK)) >>> 12), (int) (key & 0xFFF), getMode(key), getLanguage(key)));
+    private final RenderCache<Container> evolutionChains = new RenderCache<>("evolution-chains", 512,
+        key -> renderEvolutionChain((int) key, getMode(key), getLanguage(key)));
+
+    private final MediaDelivery mediaDelivery;
+    // Null if usage isn't logged
+    private final UsageLog usageLog;
+
+    private final BotMetrics metrics = new BotMetrics();
+    private final InteractionDispatcher dispatcher = new InteractionDispatcher(metrics, INTERACTION_WORKERS, MAX_INTERACTIONS_IN_FLIGHT);
+    private final ResponseBudget budget = ResponseBudget.fromEnvironment(metrics, dispatcher::getInFlight, COMPACT_ABOVE_IN_FLIGHT);
+    private final RateLimitTracker rateLimits = new RateLimitTracker(metrics);
+    // Button clicks edit their message through this, so rapid pagination only sends the latest page
+    private final MessageEditScheduler messageEdits = new MessageEditScheduler(metrics, rateLimits);
+    // What each message shows and where "Back" leads, keyed by the interaction that created the message
+    private final SessionStore sessions = new SessionStore(MAX_SESSIONS, SESSION_TTL_MILLIS);
+
+    private final ComponentRouter buttons = ComponentRouter.builder()
+        .on(ComponentId.Action.POKEMON_CARD, this::openPokemonCard)
+        .on(ComponentId.Action.POKEDEX_PAGE, this::turnPage)
+        .on(ComponentId.Action.SEARCH_PAGE, this::turnPage)
+        .on(ComponentId.Action.BACK, this::goBack)
+        .build(this::handleUnknownButton);
+    // Shows a view without recording it in the message's session
+    private final ComponentRouter views = ComponentRouter.builder()
+        .on(ComponentId.Action.POKEMON_CARD, this::showPokemonCard)
+        .on(ComponentId.Action.POKEDEX_PAGE, this::showPokedexPage)
+        .on(ComponentId.Action.SEARCH_PAGE, this::showSearchPage)
+        .build(this::handleUnknownButton);
+
+    public MyTestBot() throws IOException {
+        // Loaded in the background so the listener can be registered (and the gateway connected) immediately
+        this(CompletableFuture.supplyAsync(Pokedex::new), new MediaDelivery(MediaDelivery.Mode.fromEnvironment(), CdnUrlCache.fromEnvironment()),
+            UsageLog.fromEnvironment());
+    }
+
+    MyTestBot(CompletableFuture<Pokedex> pokedexLoader, MediaDelivery mediaDelivery) {
+        this(pokedexLoader, mediaDelivery, null);
+    }
+
+    /**
+     * @param usageLog
+     *        Records every answered interaction, or null
+     */
+    MyTestBot(CompletableFuture<Pokedex> pokedexLoader, MediaDelivery mediaDelivery, UsageLog usageLog) {
+        this.mediaDelivery = mediaDelivery;
+        this.usageLog = usageLog;
+
+        metrics.registerCache(pokedexPages);
+        metrics.registerCache(pokemonCards);
+        metrics.registerCache(evolutionChains);
+        metrics.registerCache(searchPages);
+        metrics.registerCache("media-cdn-urls", mediaDelivery::getCdnUrlHits, mediaDelivery::getCdnUrlMisses);
+        metrics.counter("pokedex_media_uploads_total", "Media gallery files attached to responses", mediaDelivery::getUploadCount);
+        metrics.counter("pokedex_media_upload_bytes_total", "Total size of the media gallery files attached to responses", mediaDelivery::getUploadBytes);
+        metrics.registerCache("sessions", sessions::getHits, sessions::getMisses);
+        metrics.counter("pokedex_session_evictions_total", "Browsing sessions dropped before they expired to make room for new ones", sessions::getEvictions);
+        metrics.gauge("pokedex_sessions", "Browsing sessions that haven't expired", sessions::size);
+        metrics.gauge("pokedex_sessions_capacity", "Browsing sessions that fit in the session store", sessions::getCapacity);
+        for (PokedexIntegrityCheck.Severity severity : PokedexIntegrityCheck.Severity.values()) {
+            metrics.gauge("pokedex_integrity_problems", "Problems the integrity check found in the loaded pokedex", () -> {
+                Pokedex current = pokedex;
+                return current == null ? 0 : current.getIntegrityProblemCount(severity);
+            }, "severity", severity.name().toLowerCase(Locale.ROOT));
+        }
+        metrics.gauge("pokedex_excluded_pokemon", "Pokemon left out of the loaded pokedex because of integrity errors", () -> {
+            Pokedex current = pokedex;
+            return current == null ? 0 : current.getExcludedPokemonCount();
+        });
+        if (usageLog != null) {
+            String help = "Interactions recorded in the usage log, by whether they were written or dropped";
+            metrics.counter("pokedex_usage_log_records_total", help, usageLog::getWritten, "outcome", "written");
+            metrics.counter("pokedex_usage_log_records_total", help, usageLog::getDropped, "outcome", "dropped");
+        }
+
+        this.pokedexLoader = pokedexLoader.whenComplete((loaded, error) -> {
+            if (error != null) {
+                LOG.error("Failed to load the pokedex", error);
+                return;
+            }
+
+            this.pokedex = loaded;
+            registerLoadTimings(loaded);
+
+            // Media folders are scanned lazily per pokemon, but we'd rather not pay for that on the first card view.
+            // Once everything is scanned, a snapshot makes the next start skip both the json parsing and the scan.
+            CompletableFuture.runAsync(() -> {
+                loaded.scanMediaImages();
+                loaded.saveSnapshot();
+                registerLoadTimings(loaded);
+                prewarm();
+            });
+        });
+    }
+
+    /**
+     * Loads the pokedex again from its sources and swaps it in once it is complete.
+     * <br>Interactions keep using the previous pokedex until then, so nothing waits on the reload.
+     * Called by the {@link PokedexWatcher}.
+     */
+    void reloadPokedex() {
+        Pokedex previous = pokedex;
+        if (previous == null) {
+            // The initial load picks up the change
+            return;
+        }
+
+        long start = System.nanoTime();
+        Pokedex loaded;
+        try {
+            loaded = new Pokedex();
+            loaded.scanMediaImages();
+        }
+        catch (RuntimeException e) {
+            metrics.counter("pokedex_reloads_total", "Reloads of the pokedex after its sources changed", "outcome", "failure").increment();
+            LOG.error("Failed to reload the pokedex, keeping the previous data", e);
+            return;
+        }
+
+        PokedexDiff diff = PokedexDiff.between(previous, loaded);
+        this.pokedex = loaded;
+        pokedexPages.clear();
+        pokemonCards.clear();
+        searchPages.clear();
+        evolutionChains.clear();
+
+        long duration = System.nanoTime() - start;
+        metrics.histogram("pokedex_reload_duration_seconds", "Time to load and swap in a changed pokedex").record(duration, TimeUnit.NANOSECONDS);
+        metrics.counter("pokedex_reloads_total", "Reloads of the pokedex after its sources changed", "outcome", "success").increment();
+        String changesHelp = "Pokemon that changed across pokedex reloads";
+        metrics.counter("pokedex_reload_changes_total", changesHelp, "change", "added").add(diff.getAdded());
+        metrics.counter("pokedex_reload_changes_total", changesHelp, "change", "removed").add(diff.getRemoved());
+        metrics.counter("pokedex_reload_changes_total", changesHelp, "change", "data").add(diff.getChanged());
+        metrics.counter("pokedex_reload_changes_total", changesHelp, "change", "emojis").add(diff.getEmojisChanged());
+        metrics.counter("pokedex_reload_changes_total", changesHelp, "change", "gallery").add(diff.getGalleriesChanged());
+        LOG.info("Reloaded the pokedex in {}ms: {}", TimeUnit.NANOSECONDS.toMillis(duration), diff);
+
+        loaded.saveSnapshot();
+        registerLoadTimings(loaded);
+        prewarm();
+    }
+
+    /**
+     * Renders the views the {@link UsageReport} found to be used most into the render caches, so their first
+     * requests after a start or reload are cache hits.
+     * <br>Uploaded media can't be prepared ahead, its CDN urls only exist once a message was sent.
+     */
+    private void prewarm() {
+        List<UsageReport.Entry> entries = UsageReport.readTop(UsageReport.DEFAULT_FILE);
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int rendered = 0;
+        for (UsageReport.Entry entry : entries) {
+            try {
+                if (prewarm(entry)) {
+                    rendered++;
+                }
+            }
+            catch (RuntimeException e) {
+                // The pokedex changed since the report was made, e.g. a page that doesn't exist anymore
+                LOG.debug("Skipping {} {} while prewarming", entry.getKind(), entry.getId(), e);
+            }
+        }
+
+        LOG.info("Prewarmed {} of the {} most used views in {}ms", rendered, entries.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private boolean prewarm(UsageReport.Entry entry) {
+        // Compact responses are the exception, only the full rendering is worth preparing.
+        // The log doesn't know the language, most users see english names.
+        ResponseBudget.Mode mode = ResponseBudget.Mode.FULL;
+        PokemonData.Language language = PokemonData.Language.ENGLISH;
+        if (UsageReport.EVOLUTIONS.equals(entry.getKind())) {
+            int pokemonId = Integer.parseInt(entry.getId());
+            if (pokedex.getPokemon(pokemonId) == null) {
+                return false;
+            }
+
+            getEvolutionChain(pokemonId, mode, language);
+            return true;
+        }
+
+        long view = ComponentId.decode(entry.getId());
+        if (view == ComponentId.INVALID) {
+            return false;
+        }
+
+        switch (ComponentId.getAction(view)) {
+            case POKEMON_CARD: {
+                int pokemonId = ComponentId.getPokemonId(view);
+                if (pokedex.getPokemon(pokemonId) == null) {
+                    return false;
+                }
+
+                pokemonCards.get(cacheKey(pokemonId, mode, language));
+                return true;
+            }
+            case POKEDEX_PAGE:
+                getPokedex(ComponentId.getGeneration(view), ComponentId.getPage(view), mode, language);
+                return true;
+            case SEARCH_PAGE:
+                getSearchPage(ComponentId.getQuery(view), ComponentId.getPage(view), mode, language);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void registerLoadTimings(Pokedex loaded) {
+        loaded.getLoadTimings().forEach((phase, millis) ->
+            metrics.gauge("pokedex_load_phase_seconds", "Duration of each phase of loading the pokedex", () -> millis / 1000.0, "phase", phase));
+    }
+
+    public BotMetrics getMetrics() {
+        return metrics;
+    }
+
+    public RateLimitTracker getRateLimits() {
+        return rateLimits;
+    }
+
+    /**
+     * @return Whether the pokedex has finished loading and interactions can be answered
+     */
+    public boolean isReady() {
+        return pokedex != null;
+    }
+
+    /**
+     * Blocks until the pokedex has finished loading.
+     * <br>Returns the initially loaded pokedex, later reloads are only visible through the {@link #pokedex} field.
+     */
+    public Pokedex awaitPokedex() {
+        return pokedexLoader.join();
+    }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         String token = System.getenv("DISCORD_TOKEN");
         if (token == null) {
             throw new RuntimeException("DISCORD_TOKEN not set");
         }
 
-        JDABuilder builder = JDABuilder.createDefault(token)
-            .addEventListeners(new MyTestBot());
+        MyTestBot bot = new MyTestBot();
+
+        // Several processes can split the shards between them, see ShardConfig
+        ShardConfig shardConfig = ShardConfig.fromEnvironment();
+        LOG.info("Running {}", shardConfig);
+        MetricsServer.fromEnvironment(bot.getMetrics(), shardConfig).start();
+
+        // The bot only handles interactions, so it doesn't need the guild and member caches
+        DefaultShardManagerBuilder builder = DefaultShardManagerBuilder.createLight(token)
+            .setShardsTotal(shardConfig.getTotal())
+            .setRestConfig(new RestConfig().setRateLimiterFactory(
+                config -> new MeasuredRateLimiter(new SequentialRestRateLimiter(config), bot.getMetrics(), bot.getRateLimits())
+            ))
+            .addEventListeners(bot);
+        if (shardConfig.getShardIds() != null) {
+            builder.setShards(shardConfig.getShardIds());
+        }
+
+        // Initialize the bot. This connects to the gateway while the pokedex is still loading.
+        ShardManager shardManager = builder.build();
+        Pokedex pokedex = bot.awaitPokedex();
+
+        // Picks up changes to the json sources (e.g. new emoji ids) without a restart
+        new PokedexWatcher(Pokedex.getSourceFiles(), bot::reloadPokedex).start();
 
-        // Initialize the bot
-        JDA jda = builder.build();
+        // Commands are global, only the process running the first shard updates them.
+        // The first shard of a process is created by build(), the others are started in the background.
+        if (!shardConfig.runs(0)) {
+            return;
+        }
+        JDA jda = shardManager.getShardById(0);
 
         // Create our commands
         jda.updateCommands().addCommands(
-            Commands.slash("pokedex", "Shows the pokédex for the OG 151 pokemon")
-                .setIntegrationTypes(IntegrationType.USER_INSTALL),
+            localize(Commands.slash("pokedex", "Shows the pokédex"),
+                    "Affiche le pokédex",
+                    "ポケモン図鑑を表示します",
+                    "显示宝可梦图鉴")
+                .setIntegrationTypes(IntegrationType.USER_INSTALL)
+                .addOptions(
+                    new OptionData(OptionType.INTEGER, "generation", "Only show pokemon from this generation")
+                        .setMinValue(1)
+                        .setMaxValue(Generation.values().length)
+                ),
+
+            localize(Commands.slash("pokedex-lookup", "Lookup pokemon by their id or name"),
+                    "Recherche un pokémon par son numéro ou son nom",
+                    "番号または名前でポケモンを調べます",
+                    "按编号或名称查找宝可梦")
+                .setIntegrationTypes(IntegrationType.USER_INSTALL)
+                .addOptions(
+                    new OptionData(OptionType.INTEGER, "pokemon-id", "The id of the pokemon (1 - " + pokedex.getMaxId() + ")")
+                        .setMinValue(1)
+                        .setMaxValue(pokedex.getMaxId())
+                        .setAutoComplete(true)
+                        .setRequired(true)
+                ),
 
-            Commands.slash("pokedex-lookup", "Lookup pokemon by their id")
+            localize(Commands.slash("pokedex-evolutions", "Shows the whole evolution chain of a pokemon"),
+                    "Affiche toute la chaîne d'évolution d'un pokémon",
+                    "ポケモンの進化の流れをすべて表示します",
+                    "显示宝可梦的完整进化链")
                 .setIntegrationTypes(IntegrationType.USER_INSTALL)
                 .addOptions(
-                    new OptionData(OptionType.INTEGER, "pokemon-id", "The id of the pokemon (1 - 151)")
+                    new OptionData(OptionType.INTEGER, "pokemon-id", "The id of the pokemon (1 - " + pokedex.getMaxId() + ")")
                         .setMinValue(1)
-                        .setMaxValue(Pokedex.LAST_POKEMON_ID_IN_FIRST_GEN)
+                        .setMaxValue(pokedex.getMaxId())
                         .setAutoComplete(true)
                         .setRequired(true)
+                ),
+
+            localize(Commands.slash("pokedex-search", "Filter and sort the pokédex by type, generation and base stats"),
+                    "Filtre et trie le pokédex par type, génération et statistiques de base",
+                    "タイプ、世代、種族値でポケモン図鑑を絞り込んで並べ替えます",
+                    "按属性、世代和种族值筛选并排序宝可梦图鉴")
+                .setIntegrationTypes(IntegrationType.USER_INSTALL)
+                .addOptions(
+                    makeTypeOption("type", "Only show pokemon of this type"),
+                    makeTypeOption("second-type", "Only show pokemon that also have this type"),
+                    new OptionData(OptionType.INTEGER, "generation", "Only show pokemon from this generation")
+                        .setMinValue(1)
+                        .setMaxValue(Generation.values().length),
+                    makeStatOption("sort-by", "Sort by this base stat"),
+                    new OptionData(OptionType.STRING, "order", "Whether the highest or lowest values come first")
+                        .addChoice("Highest first", "highest")
+                        .addChoice("Lowest first", "lowest"),
+                    makeStatOption("filter-stat", "Only show pokemon with this base stat between min and max"),
+                    new OptionData(OptionType.INTEGER, "min", "The lowest value of the filter stat to include")
+                        .setMinValue(0)
+                        .setMaxValue(PokedexQuery.MAX_STAT_VALUE),
+                    new OptionData(OptionType.INTEGER, "max", "The highest value of the filter stat to include")
+                        .setMinValue(0)
+                        .setMaxValue(PokedexQuery.MAX_STAT_VALUE)
                 )
 
         ).queue();
     }
 
+    /**
+     * Translates the description of a command into the languages the pokemon names are shown in.
+     */
+    private static SlashCommandData localize(SlashCommandData command, String french, String japanese, String chinese) {
+        Map<PokemonData.Language, String> descriptions = Map.of(
+            PokemonData.Language.FRENCH, french,
+            PokemonData.Language.JAPANESE, japanese,
+            PokemonData.Language.CHINESE, chinese
+        );
+        descriptions.forEach((language, description) ->
+            language.getLocales().forEach(locale -> command.setDescriptionLocalization(locale, description)));
+        return command;
+    }
+
+    private static OptionData makeTypeOption(String name, String description) {
+        OptionData option = new OptionData(OptionType.STRING, name, description);
+        PokedexQuery.TYPES.forEach(type -> option.addChoice(type, type));
+        return option;
+    }
+
+    private static OptionData makeStatOption(String name, String description) {
+        OptionData option = new OptionData(OptionType.STRING, name, description);
+        for (PokemonData.Stat stat : PokemonData.Stat.values()) {
+            option.addChoice(stat.getKey(), stat.name());
+        }
+        return option;
+    }
+
     @Override
     public void onSlashCommandInteraction(SlashCommandInteractionEvent event) {
+        dispatcher.dispatch(event, new InteractionTimer(metrics, usageLog, event, "slash", event.getName()), this::handleSlashCommand);
+    }
+
+    @Override
+    public void onCommandAutoCompleteInteraction(CommandAutoCompleteInteractionEvent event) {
+        dispatcher.dispatchAutoComplete(event, new InteractionTimer(metrics, usageLog, event, "autocomplete", event.getName()), this::handleAutoComplete);
+    }
+
+    @Override
+    public void onButtonInteraction(ButtonInteractionEvent event) {
+        // Component ids carry arguments, so only their action is used as the metric name
+        long componentId = ComponentId.decode(event.getComponentId());
+        String action = componentId == ComponentId.INVALID ? "unhandled" : ComponentId.getAction(componentId).getMetricName();
+
+        dispatcher.dispatch(event, new InteractionTimer(metrics, usageLog, event, "button", action),
+            (buttonEvent, response) -> handleButton(buttonEvent, response, componentId));
+    }
+
+    private void handleSlashCommand(SlashCommandInteractionEvent event, InteractionResponse response) {
+        if (!isReady()) {
+            response.reply(NOT_READY_MESSAGE, true);
+            return;
+        }
+
+        PokemonData.Language language = PokemonData.Language.fromLocale(event.getUserLocale());
         switch (event.getName()) {
             case "pokedex": {
-                event.replyComponents(getPokedex(1))
-                    .useComponentsV2()
-                    .queue();
+                OptionMapping generationOption = event.getOption("generation");
+                Generation generation = generationOption == null ? null : Generation.fromNumber(generationOption.getAsInt());
 
+                long view = ComponentId.packPokedexPage(generation, 1);
+                sessions.start(event.getIdLong(), view);
+                response.describe(view, 0);
+                response.replyComponents(fitToBudget("pokedex-page", budget.selectMode(), mode -> List.of(getPokedex(generation, 1, mode, language))), null);
                 return;
             }
             case "pokedex-lookup": {
                 int pokemonId = event.getOption("pokemon-id").getAsInt();
+                PokemonData pokemonData = pokedex.getPokemon(pokemonId);
+                if (pokemonData == null) {
+                    response.reply("There is no pokemon with the id: " + pokemonId, true);
+                    return;
+                }
 
-                event.replyComponents(getPokemonCard(pokemonId))
-                    .useComponentsV2()
-                    .queue();
+                ResponseBudget.Mode initialMode = budget.selectMode();
+                MediaDelivery.Gallery gallery = mediaDelivery.selectGallery(pokemonData, getMediaImagesPerCard(initialMode), MediaDelivery.RANDOM_PAGE);
+                long view = ComponentId.packPokemonCard(pokemonId, gallery.getPage(), null);
+                sessions.start(event.getIdLong(), view);
+                response.describe(view, pokemonId);
+                response.replyComponents(fitToBudget("pokemon-card", initialMode, mode -> List.of(getPokemonCard(pokemonId, null, gallery, mode, language))), gallery::onSent);
                 return;
             }
-        }
+            case "pokedex-evolutions": {
+                int pokemonId = event.getOption("pokemon-id").getAsInt();
+                if (pokedex.getPokemon(pokemonId) == null) {
+                    response.reply("There is no pokemon with the id: " + pokemonId, true);
+                    return;
+                }
 
-        event.reply("This command has not been handled: " + event.getName()).queue();
-    }
+                response.describe(ComponentId.INVALID, pokemonId);
+                response.replyComponents(fitToBudget("evolution-chain", budget.selectMode(), mode -> List.of(getEvolutionChain(pokemonId, mode, language))), null);
+                return;
+            }
+            case "pokedex-search": {
+                OptionMapping generationOption = event.getOption("generation");
+                String sortBy = getStringOption(event, "sort-by");
+                String filterStat = getStringOption(event, "filter-stat");
+                OptionMapping minOption = event.getOption("min");
+                OptionMapping maxOption = event.getOption("max");
 
-    @Override
-    public void onCommandAutoCompleteInteraction(CommandAutoCompleteInteractionEvent event) {
-        if (event.getName().equals("pokedex-lookup")) {
-            String typedValue = event.getFocusedOption().getValue();
+                if (filterStat == null && (minOption != null || maxOption != null)) {
+                    response.reply("Choose a filter-stat for the minimum and maximum to apply to", true);
+                    return;
+                }
+
+                int min = minOption == null ? 0 : minOption.getAsInt();
+                int max = maxOption == null ? PokedexQuery.MAX_STAT_VALUE : maxOption.getAsInt();
+                if (min > max) {
+                    response.reply("The minimum (" + min + ") can't be higher than the maximum (" + max + ")", true);
+                    return;
+                }
 
-            // If the value typed is empty, show first 25 pokemon
-            // if the value is not empty, and is an int, try to match
-            // if the value is not empty and is not an int, get angry
-            if (typedValue.isBlank()) {
-                List<Command.Choice> choices = pokedex.getPokemonMap().values().stream().limit(25).map(pokemonData -> {
-                        return new Command.Choice(pokemonData.getName(), pokemonData.getId());
-                    })
-                    .toList();
+                PokedexQuery query = new PokedexQuery(
+                    getStringOption(event, "type"),
+                    getStringOption(event, "second-type"),
+                    generationOption == null ? null : Generation.fromNumber(generationOption.getAsInt()),
+                    sortBy == null ? null : PokemonData.Stat.valueOf(sortBy),
+                    "lowest".equals(getStringOption(event, "order")),
+                    filterStat == null ? null : PokemonData.Stat.valueOf(filterStat),
+                    min,
+                    max
+                );
 
-                event.replyChoices(choices).queue();
+                long view = ComponentId.packSearchPage(query, 1);
+                sessions.start(event.getIdLong(), view);
+                response.describe(view, 0);
+                response.replyComponents(fitToBudget("search-page", budget.selectMode(), mode -> List.of(getSearchPage(query, 1, mode, language))), null);
                 return;
             }
+        }
 
-            List<Command.Choice> choices =pokedex.getPokemonMap().values().stream()
-                .filter(pokemonData -> String.valueOf(pokemonData.getId()).contains(typedValue))
-                .limit(25)
-                .map(pokemonData -> {
-                    return new Command.Choice(pokemonData.getName(), pokemonData.getId());
-                })
-                .toList();
+        response.reply("This command has not been handled: " + event.getName(), false);
+    }
 
-            event.replyChoices(choices).queue();
+    private static String getStringOption(SlashCommandInteractionEvent event, String name) {
+        OptionMapping option = event.getOption(name);
+        return option == null ? null : option.getAsString();
+    }
+
+    private void handleAutoComplete(CommandAutoCompleteInteractionEvent event, InteractionTimer timer) {
+        if (!isReady()) {
+            event.replyChoices().queue(timer.onSuccess(), timer.onFailure());
+            return;
+        }
+
+        if (event.getName().equals("pokedex-lookup") || event.getName().equals("pokedex-evolutions")) {
+            String typedValue = event.getFocusedOption().getValue();
+
+            // Matches ids, names in every language, types and species. A blank value shows the first 25 pokemon.
+            // The choices are labeled in the user's language.
+            PokemonData.Language language = PokemonData.Language.fromLocale(event.getUserLocale());
+            event.replyChoices(pokedex.getSearchIndex(language).search(typedValue)).queue(timer.onSuccess(), timer.onFailure());
             return;
         }
 
 
         // TODO - show that there were no options
-        event.replyChoices().queue();
+        event.replyChoices().queue(timer.onSuccess(), timer.onFailure());
     }
 
-    @Override
-    public void onButtonInteraction(ButtonInteractionEvent event) {
-        // pokemon-card--133
-        String componentId = event.getComponentId();
-        if (componentId.startsWith("pokemon-card")) {
-            int pokemonId = Integer.parseInt(componentId.split("--")[1]);
-
-            int targetPokedexPage = (pokemonId / POKEMON_PER_PAGE) + (pokemonId % POKEMON_PER_PAGE == 0 ? 0 : 1);
-
-            event.editComponents(
-                    getPokemonCard(pokemonId),
-                    ActionRow.of(
-                        Button.secondary(makePokedexId(targetPokedexPage), "Return to Pokédex")
-                    )
-                )
-                .useComponentsV2()
-                .queue();
+    private void handleButton(ButtonInteractionEvent event, InteractionResponse response, long componentId) {
+        if (!isReady()) {
+            response.reply(NOT_READY_MESSAGE, true);
+            return;
+        }
+
+        buttons.route(event, response, componentId);
+    }
+
+    /**
+     * @return The key of the message's session: the id of the slash command that created the message
+     */
+    private static long getSessionKey(ButtonInteractionEvent event) {
+        // Edits keep the metadata of the interaction that sent the message
+        Message.InteractionMetadata metadata = event.getMessage().getInteractionMetadata();
+        return metadata != null ? metadata.getIdLong() : event.getMessageIdLong();
+    }
+
+    private void openPokemonCard(ButtonInteractionEvent event, InteractionResponse response, long componentId) {
+        long sessionKey = getSessionKey(event);
+        long current = sessions.getCurrent(sessionKey);
+        // "More Images" replaces the card, opening another pokemon's card can go back to the current view
+        boolean samePokemon = current != ComponentId.INVALID && ComponentId.getAction(current) == ComponentId.Action.POKEMON_CARD
+            && ComponentId.getPokemonId(current) == ComponentId.getPokemonId(componentId);
+        sessions.navigate(sessionKey, componentId, !samePokemon);
+        showPokemonCard(event, response, componentId);
+    }
 
+    private void turnPage(ButtonInteractionEvent event, InteractionResponse response, long componentId) {
+        sessions.navigate(getSessionKey(event), componentId, false);
+        views.route(event, response, componentId);
+    }
+
+    private void goBack(ButtonInteractionEvent event, InteractionResponse response, long componentId) {
+        long sessionKey = getSessionKey(event);
+        long view = sessions.back(sessionKey);
+        if (view == ComponentId.INVALID) {
+            // The session expired or was evicted, the button knows the pokedex page of the card
+            view = ComponentId.packPokedexPage(ComponentId.getGeneration(componentId), ComponentId.getPage(componentId));
+            sessions.navigate(sessionKey, view, false);
+        }
+
+        views.route(event, response, view);
+    }
+
+    private void showPokemonCard(ButtonInteractionEvent event, InteractionResponse response, long componentId) {
+        int pokemonId = ComponentId.getPokemonId(componentId);
+        PokemonData pokemonData = pokedex.getPokemon(pokemonId);
+        if (pokemonData == null) {
+            handleUnknownButton(event, response, componentId);
             return;
         }
-        // pokedex--1
-        else if (componentId.startsWith("pokedex")) {
-            int page = Integer.parseInt(componentId.split("--")[1]);
-            event.editComponents(getPokedex(page)).useComponentsV2().queue();
+
+        // Without a session, return to the page listing the pokemon in the pokedex the card was opened from
+        Generation origin = ComponentId.getGeneration(componentId);
+        int targetPokedexPage = getPokedexPage(origin, pokemonId);
+        long sessionKey = getSessionKey(event);
+        PokemonData.Language language = PokemonData.Language.fromLocale(event.getUserLocale());
+
+        // Selected only if the edit is sent, a superseded card doesn't count (or learn) uploads
+        AtomicReference<MediaDelivery.Gallery> gallery = new AtomicReference<>();
+        messageEdits.schedule(event.getMessageIdLong(), response, () -> {
+            ResponseBudget.Mode initialMode = budget.selectMode();
+            gallery.set(mediaDelivery.selectGallery(pokemonData, getMediaImagesPerCard(initialMode), ComponentId.getGalleryPage(componentId)));
+            // Remember the page the gallery shows, so coming back to the card shows the same images
+            long view = ComponentId.packPokemonCard(pokemonId, gallery.get().getPage(), origin);
+            sessions.navigate(sessionKey, view, false);
+            response.describe(view, pokemonId);
+
+            String backLabel = getBackLabel(sessions.peekBack(sessionKey), language);
+            return fitToBudget("pokemon-card", initialMode, mode -> List.of(
+                getPokemonCard(pokemonId, origin, gallery.get(), mode, language),
+                ActionRow.of(
+                    Button.secondary(ComponentId.back(origin, targetPokedexPage), backLabel)
+                )
+            ));
+        }, hook -> gallery.get().onSent(hook));
+    }
+
+    /**
+     * @param generation
+     *        The generation of the pokedex, or null for every generation
+     *
+     * @return The page of the pokedex listing the pokemon, 1 if it isn't listed
+     */
+    private int getPokedexPage(Generation generation, int pokemonId) {
+        // Ordered by id
+        List<PokemonData> pokemon = pokedex.getPokemon(generation);
+        int low = 0;
+        int high = pokemon.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = pokemon.get(middle).getId();
+            if (middleId < pokemonId) {
+                low = middle + 1;
+            }
+            else if (middleId > pokemonId) {
+                high = middle - 1;
+            }
+            else {
+                return (middle / POKEMON_PER_PAGE) + 1;
+            }
+        }
+
+        return 1;
+    }
+
+    private String getBackLabel(long view, PokemonData.Language language) {
+        ComponentId.Action action = view == ComponentId.INVALID ? null : ComponentId.getAction(view);
+        if (action == ComponentId.Action.SEARCH_PAGE) {
+            return "Back to Search Results";
+        }
+        if (action == ComponentId.Action.POKEMON_CARD) {
+            PokemonData previous = pokedex.getPokemon(ComponentId.getPokemonId(view));
+            if (previous != null) {
+                return "Back to " + previous.getDisplayName(language);
+            }
+        }
+
+        return "Return to Pokédex";
+    }
+
+    private void showPokedexPage(ButtonInteractionEvent event, InteractionResponse response, long componentId) {
+        Generation generation = ComponentId.getGeneration(componentId);
+        int page = ComponentId.getPage(componentId);
+        PokemonData.Language language = PokemonData.Language.fromLocale(event.getUserLocale());
+        response.describe(componentId, 0);
+        messageEdits.schedule(event.getMessageIdLong(), response,
+            () -> fitToBudget("pokedex-page", budget.selectMode(), mode -> List.of(getPokedex(generation, page, mode, language))), null);
+    }
+
+    private void showSearchPage(ButtonInteractionEvent event, InteractionResponse response, long componentId) {
+        PokedexQuery query;
+        try {
+            query = ComponentId.getQuery(componentId);
+        }
+        catch (IllegalArgumentException e) {
+            handleUnknownButton(event, response, componentId);
             return;
         }
 
-        event.reply("This button has not been handled: " + event.getComponentId()).queue();
+        int page = ComponentId.getPage(componentId);
+        PokemonData.Language language = PokemonData.Language.fromLocale(event.getUserLocale());
+        response.describe(componentId, 0);
+        messageEdits.schedule(event.getMessageIdLong(), response,
+            () -> fitToBudget("search-page", budget.selectMode(), mode -> List.of(getSearchPage(query, page, mode, language))), null);
+    }
+
+    private void handleUnknownButton(ButtonInteractionEvent event, InteractionResponse response, long componentId) {
+        response.reply("This button has not been handled: " + event.getComponentId(), false);
     }
 
-    private Container getPokemonCard(int pokemonId) {
-        PokemonData pokemonData = pokedex.getPokemonMap().get(pokemonId);
+    /**
+     * Renders a response in the provided mode, falling back to {@link ResponseBudget.Mode#COMPACT} if it
+     * doesn't fit the {@link ResponseBudget}, and records its size.
+     *
+     * @param response
+     *        The kind of response, used as metric label
+     */
+    private List<MessageTopLevelComponent> fitToBudget(String response, ResponseBudget.Mode mode,
+                                                       Function<ResponseBudget.Mode, List<MessageTopLevelComponent>> renderer) {
+        List<MessageTopLevelComponent> components = renderer.apply(mode);
+        ResponseBudget.Measurement measurement = budget.measure(components);
+        if (mode == ResponseBudget.Mode.FULL && !budget.fits(measurement)) {
+            mode = ResponseBudget.Mode.COMPACT;
+            components = renderer.apply(mode);
+            measurement = budget.measure(components);
+        }
+
+        budget.record(response, mode, measurement);
+        return components;
+    }
+
+    private static int getMediaImagesPerCard(ResponseBudget.Mode mode) {
+        return mode == ResponseBudget.Mode.COMPACT ? COMPACT_MEDIA_IMAGES_PER_CARD : MEDIA_IMAGES_PER_CARD;
+    }
+
+    private static long cacheKey(long key, ResponseBudget.Mode mode, PokemonData.Language language) {
+        long cacheKey = key | ((long) language.ordinal() << LANGUAGE_KEY_SHIFT);
+        return mode == ResponseBudget.Mode.COMPACT ? cacheKey | COMPACT_KEY : cacheKey;
+    }
+
+    private static ResponseBudget.Mode getMode(long cacheKey) {
+        return (cacheKey & COMPACT_KEY) != 0 ? ResponseBudget.Mode.COMPACT : ResponseBudget.Mode.FULL;
+    }
+
+    private static PokemonData.Language getLanguage(long cacheKey) {
+        return PokemonData.Language.values()[(int) ((cacheKey & LANGUAGE_KEY_MASK) >>> LANGUAGE_KEY_SHIFT)];
+    }
+
+    /**
+     * @param origin
+     *        The generation of the pokedex page the card was opened from, or null for every generation
+     */
+    Container getPokemonCard(int pokemonId, Generation origin, MediaDelivery.Gallery gallery, ResponseBudget.Mode mode, PokemonData.Language language) {
+        PokemonCardParts parts = pokemonCards.get(cacheKey(pokemonId, mode, language));
+
+        // The gallery and the page "More Images" leads to are the only parts of the card that change between requests
+        List<ContainerChildComponent> children = new ArrayList<>(parts.header.size() + 2);
+        children.addAll(parts.header);
+        children.add(MediaGallery.of(gallery.getItems()));
+        children.add(Section.of(
+            Button.secondary(ComponentId.pokemonCard(pokemonId, gallery.getNextPage(), origin), "More Images")
+                .withEmoji(MORE_IMAGES_EMOJI)
+                .withDisabled(gallery.getPageCount() <= 1),
+            parts.footer
+        ));
+
+        return Container.of(children);
+    }
+
+    private PokemonCardParts renderPokemonCardParts(int pokemonId, ResponseBudget.Mode mode, PokemonData.Language language) {
+        PokemonData pokemonData = pokedex.getPokemon(pokemonId);
+        String description = mode == ResponseBudget.Mode.COMPACT
+            ? shorten(pokemonData.getDescription(), COMPACT_DESCRIPTION_LENGTH)
+            : pokemonData.getDescription();
 
         List<ContainerChildComponent> children = new ArrayList<>();
         children.add(
@@ -166,8 +812,8 @@ class MyTestBot extends ListenerAdapter {
                 ),
                 TextDisplay.of(String.format(
                     "## %s\n%s",
-                    pokemonData.getName(),
-                    pokemonData.getDescription()
+                    pokemonData.getDisplayName(language),
+                    description
                 ))
             )
         );
@@ -181,7 +827,7 @@ class MyTestBot extends ListenerAdapter {
 
             if (prevEvolution != null) {
                 children.add(TextDisplay.of("**Previous Evolution**"));
-                children.add(getPokemonRow(prevEvolution.getPokemonId()));
+                children.add(getPokemonRow(prevEvolution.getPokemonId(), null, null, mode, language));
             }
             if (nextEvolutions != null) {
                 String header = nextEvolutions.size() == 1
@@ -190,47 +836,77 @@ class MyTestBot extends ListenerAdapter {
 
                 children.add(TextDisplay.of(header));
                 nextEvolutions.forEach(evolution -> {
-                    String criteriaDescription = "-# Criteria: " + evolution.getCriteria();
-                    children.add(getPokemonRow(evolution.getPokemonId(), criteriaDescription));
+                    int evolutionId = evolution.getPokemonId();
+                    children.add(makePokemonRow(evolutionId, null, pokedex.getRows().getEvolutionRow(evolutionId, mode, language)));
                 });
             }
 
             children.add(Separator.createInvisible(Separator.Spacing.SMALL));
         }
 
-        List<MediaGalleryItem> mediaItems = pokemonData.getImages().getRandomMediaImages(4)
-            .stream()
-            .map(path -> MediaGalleryItem.fromFile(FileUpload.fromData(path)))
-            .toList();
+        TextDisplay footer = TextDisplay.of(
+            "-# Data for this pokemon comes from [pokemon.json](https://github.com/Purukitto/pokemon-data.json) and images from [dataset](https://www.kaggle.com/datasets/vishalsubbiah/pokemon-images-and-types)."
+        );
 
-        children.addAll(List.of(
-            MediaGallery.of(mediaItems),
-            Section.of(
-                Button.secondary(makePokemonCardId(pokemonId), "More Images").withEmoji(Emoji.fromUnicode("\uD83D\uDD04")),
-                TextDisplay.of(
-                    "-# Data for this pokemon comes from [pokemon.json](https://github.com/Purukitto/pokemon-data.json) and images from [dataset](https://www.kaggle.com/datasets/vishalsubbiah/pokemon-images-and-types)."
-                )
-            )
+        return new PokemonCardParts(List.copyOf(children), footer);
+    }
+
+    Container getEvolutionChain(int pokemonId, ResponseBudget.Mode mode, PokemonData.Language language) {
+        // Every pokemon of a chain shows the same message
+        return evolutionChains.get(cacheKey(pokedex.getEvolutionGraph().getChainRootId(pokemonId), mode, language));
+    }
+
+    private Container renderEvolutionChain(int rootId, ResponseBudget.Mode mode, PokemonData.Language language) {
+        EvolutionGraph evolutions = pokedex.getEvolutionGraph();
+        int chainSize = evolutions.getChainSize(rootId);
+
+        List<ContainerChildComponent> children = new ArrayList<>();
+        children.add(TextDisplay.of(chainSize == 1
+            ? "## " + pokedex.getPokemon(rootId).getDisplayName(language) + " does not evolve"
+            : "## Evolution chain of " + pokedex.getPokemon(rootId).getDisplayName(language)
         ));
 
+        for (int i = 0; i < Math.min(chainSize, MAX_EVOLUTION_CHAIN_ROWS); i++) {
+            int pokemonId = evolutions.getChainMemberId(rootId, i);
+            int parentId = evolutions.getParentId(pokemonId);
+            String criteria = evolutions.getParentCriteria(pokemonId);
+
+            String description;
+            if (parentId == 0) {
+                description = "-# Base form";
+            }
+            else {
+                description = "-# Evolves from " + pokedex.getPokemon(parentId).getDisplayName(language) + (criteria == null ? "" : ": " + criteria);
+            }
+
+            children.add(getPokemonRow(pokemonId, null, description, mode, language));
+        }
+
         return Container.of(children);
     }
 
-    private Container getPokedex(int currentPage) {
-        int totalPokemon = pokedex.getTotalPokemon();
+    Container getPokedex(Generation generation, int currentPage, ResponseBudget.Mode mode, PokemonData.Language language) {
+        long key = ((long) (generation == null ? 0 : generation.getNumber()) << 32) | currentPage;
+        return pokedexPages.get(cacheKey(key, mode, language));
+    }
+
+    Container renderPokedex(Generation generation, int currentPage, ResponseBudget.Mode mode, PokemonData.Language language) {
+        List<PokemonData> pokemon = pokedex.getPokemon(generation);
+        int totalPokemon = pokemon.size();
 
         // 123 / 10 -> 12 | 3 -> 1 | 13
         // 120 / 10 -> 12 | 0 -> 0 | 12
-        int totalPages = (totalPokemon / POKEMON_PER_PAGE) + (totalPokemon % POKEMON_PER_PAGE == 0 ? 0 : 1);
+        int totalPages = Math.max(1, (totalPokemon / POKEMON_PER_PAGE) + (totalPokemon % POKEMON_PER_PAGE == 0 ? 0 : 1));
+        // Pages that don't exist (anymore), e.g. in old messages after pokemon were excluded, show the closest page
+        int page = Math.max(1, Math.min(currentPage, totalPages));
 
-        // 1: 1 - 10, 11- 20, 21 - 30
-        int firstPokemonId = 1 + ((currentPage - 1) * POKEMON_PER_PAGE);
-        int lastPokemonId = firstPokemonId + (POKEMON_PER_PAGE - 1);
+        // 1: 0 - 9, 10 - 19, 20 - 29
+        int firstIndex = (page - 1) * POKEMON_PER_PAGE;
+        int lastIndex = Math.min(firstIndex + POKEMON_PER_PAGE, totalPokemon);
 
-        List<Section> selectedPokemon = pokedex.getPokemonMap().values()
+        List<Section> selectedPokemon = pokemon.subList(firstIndex, lastIndex)
             .stream()
-            .filter(pokemonData -> pokemonData.getId() >= firstPokemonId && pokemonData.getId() <= lastPokemonId)
-            .map(pokemonData -> getPokemonRow(pokemonData.getId())).toList();
+            .map(pokemonData -> getPokemonRow(pokemonData.getId(), generation, null, mode, language)).toList();
 
         List<ContainerChildComponent> children = new ArrayList<>();
         children.add(MediaGallery.of(
@@ -239,60 +915,117 @@ class MyTestBot extends ListenerAdapter {
             )
         ));
 
+        if (selectedPokemon.isEmpty()) {
+            children.add(TextDisplay.of("No pokemon of this generation are available."));
+        }
         children.addAll(selectedPokemon);
 
-        int nextPage = currentPage + 1;
-        int prevPage = currentPage - 1;
-        String paginatorLabel = String.format("Page (%d / %d)", currentPage, totalPages);
-
-        children.add(
-            ActionRow.of(
-                Button.primary(makePokedexId(prevPage), "Prev").withDisabled(prevPage <= 0),
-                Button.secondary("ignore", paginatorLabel).withDisabled(true),
-                Button.primary(makePokedexId(nextPage), "Next").withDisabled(nextPage > totalPages)
-            )
-        );
+        children.add(makePaginator(page, totalPages, targetPage -> ComponentId.pokedexPage(generation, targetPage)));
 
         return Container.of(children);
     }
 
-    private Section getPokemonRow(int pokemonId) {
-        return getPokemonRow(pokemonId, null);
+    Container getSearchPage(PokedexQuery query, int currentPage, ResponseBudget.Mode mode, PokemonData.Language language) {
+        return searchPages.get(cacheKey((query.pack() << 12) | currentPage, mode, language));
     }
 
-    private Section getPokemonRow(int pokemonId, String extraDescription) {
-        PokemonData pokemonData = pokedex.getPokemonMap().get(pokemonId);
+    private Container renderSearchPage(PokedexQuery query, int currentPage, ResponseBudget.Mode mode, PokemonData.Language language) {
+        PokedexQueryEngine.Result result = pokedex.getQueryEngine().execute(query, (currentPage - 1) * POKEMON_PER_PAGE, POKEMON_PER_PAGE);
+        int totalMatches = result.getTotalMatches();
+        int totalPages = Math.max(1, (totalMatches / POKEMON_PER_PAGE) + (totalMatches % POKEMON_PER_PAGE == 0 ? 0 : 1));
 
-        // [<:a:ID>, <:a:ID>, <:a:ID>, <:a:ID>]
-        // 0, 1
-        // 2, 3
-        List<String> emojiIds = pokemonData.getImages().getThumbnailEmojiMentions();
+        List<ContainerChildComponent> children = new ArrayList<>();
+        children.add(TextDisplay.of("## Search results\n-# " + query.describe() + " · " + totalMatches + " pokemon"));
+        if (totalMatches == 0) {
+            children.add(TextDisplay.of("No pokemon match these filters."));
+        }
 
-        String rowDescription = String.format(
-            "**%s%s   %s**\n%s%s   %s - %s",
-            emojiIds.get(0), emojiIds.get(1),
-            pokemonData.getName(),
+        for (int i = 0; i < result.getPokemonCount(); i++) {
+            int pokemonId = result.getPokemonId(i);
+            children.add(getPokemonRow(pokemonId, null, describeQueriedStats(query, pokemonId), mode, language));
+        }
 
-            emojiIds.get(2), emojiIds.get(3),
-            pokemonData.getSpecies(),
-            pokemonData.getTypes().stream().collect(Collectors.joining(", "))
-        );
+        children.add(makePaginator(currentPage, totalPages, page -> ComponentId.searchPage(query, page)));
+
+        return Container.of(children);
+    }
+
+    private String describeQueriedStats(PokedexQuery query, int pokemonId) {
+        PokemonData.Stats stats = pokedex.getPokemon(pokemonId).getStats();
+        PokemonData.Stat sortBy = query.getSortBy();
+        PokemonData.Stat filterStat = query.getFilterStat();
 
-        if (extraDescription != null) {
-            rowDescription += "\n" + extraDescription;
+        if (sortBy == null && filterStat == null) {
+            return null;
         }
 
+        StringBuilder description = new StringBuilder("-# ");
+        if (sortBy != null) {
+            description.append(sortBy.getKey()).append(" **").append(stats.get(sortBy)).append("**");
+        }
+        if (filterStat != null && filterStat != sortBy) {
+            if (sortBy != null) {
+                description.append(" · ");
+            }
+            description.append(filterStat.getKey()).append(' ').append(stats.get(filterStat));
+        }
+
+        return description.toString();
+    }
+
+    private ActionRow makePaginator(int currentPage, int totalPages, IntFunction<String> pageId) {
+        int nextPage = currentPage + 1;
+        int prevPage = currentPage - 1;
+        String paginatorLabel = String.format("Page (%d / %d)", currentPage, totalPages);
+
+        return ActionRow.of(
+            Button.primary(pageId.apply(prevPage), "Prev").withDisabled(prevPage <= 0),
+            Button.secondary(ComponentId.none(0), paginatorLabel).withDisabled(true),
+            Button.primary(pageId.apply(nextPage), "Next").withDisabled(nextPage > totalPages)
+        );
+    }
+
+    Section getPokemonRow(int pokemonId) {
+        return getPokemonRow(pokemonId, null, null, ResponseBudget.Mode.FULL, PokemonData.Language.ENGLISH);
+    }
+
+    /**
+     * @param origin
+     *        The generation of the pokedex page showing the row, or null if it isn't shown on a pokedex page
+     */
+    Section getPokemonRow(int pokemonId, Generation origin, String extraDescription, ResponseBudget.Mode mode, PokemonData.Language language) {
+        String row = pokedex.getRows().getRow(pokemonId, mode, language);
+        return makePokemonRow(pokemonId, origin, extraDescription == null ? row : row + "\n" + extraDescription);
+    }
+
+    private static Section makePokemonRow(int pokemonId, Generation origin, String text) {
         return Section.of(
-            Button.secondary(makePokemonCardId(pokemonData.getId()), "View"),
-            TextDisplay.of(rowDescription)
+            Button.secondary(ComponentId.pokemonCard(pokemonId, origin), "View"),
+            TextDisplay.of(text)
         );
     }
 
-    private String makePokedexId(int page) {
-        return "pokedex--" + page;
+    /**
+     * Cuts text at the last word that fits, marking the cut with an ellipsis.
+     */
+    private static String shorten(String text, int maxLength) {
+        if (text == null || text.length() <= maxLength) {
+            return text;
+        }
+
+        int end = text.lastIndexOf(' ', maxLength - 1);
+        return text.substring(0, end > 0 ? end : maxLength - 1) + "…";
     }
 
-    private String makePokemonCardId(int pokemonId) {
-        return "pokemon-card--" + pokemonId;
+    private static class PokemonCardParts {
+        // Everything above the media gallery: thumbnail, description and evolutions
+        private final List<ContainerChildComponent> header;
+        // The data attribution next to the "More Images" button below the media gallery
+        private final TextDisplay footer;
+
+        private PokemonCardParts(List<ContainerChildComponent> header, TextDisplay footer) {
+            this.header = header;
+            this.footer = footer;
+        }
     }
 }
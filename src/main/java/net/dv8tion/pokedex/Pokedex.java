@@ -2,44 +2,186 @@ package net.dv8tion.pokedex;
 
 import net.dv8tion.jda.api.utils.data.DataArray;
 import net.dv8tion.jda.api.utils.data.DataObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static net.dv8tion.pokedex.MyTestBot.HOSTED_ASSETS_ROOT;
 
 public class Pokedex
 {
-    public static final int LAST_POKEMON_ID_IN_FIRST_GEN = 151;
+    private static final Logger LOG = LoggerFactory.getLogger(Pokedex.class);
+
     public static final String POKEDEX_HEADER_URL = HOSTED_ASSETS_ROOT + "/pokemon-data/images/pokedex-header.webp";
 
     private static final String POKEDEX_DATA_FILE = "pokemon-data/pokedex.json";
     private static final String EMOJI_DATA_FILE = "pokemon-data/emoji_ids.json";
 
-    private final HashMap<Integer, PokemonData> pokedexData = new HashMap<>();
+    private final Path snapshotFile;
+    private final long sourceFingerprint;
+    private final boolean loadedFromSnapshot;
+    // Held from parsing the sources until the snapshot is written, so other shard processes wait and map it instead
+    private FileLock snapshotLock;
+
+    private final PokemonTable table;
+    // Pokemon with errors are left out of the table, see PokedexIntegrityCheck
+    private final PokedexIntegrityCheck.Report dataIntegrity;
+    // Null until the media folders were checked by scanMediaImages()
+    private volatile PokedexIntegrityCheck.Report mediaIntegrity;
+    private final EvolutionGraph evolutionGraph;
+    private final PokemonRows rows;
+
+    // Indexed by pokemon id, null for ids that aren't present in the data set
+    private final PokemonData[] pokemonById;
+    private final List<PokemonData> allPokemon;
+    private final Map<Generation, List<PokemonData>> pokemonByGeneration = new EnumMap<>(Generation.class);
+    // One per language, see PokedexSearchIndex
+    private final Map<PokemonData.Language, PokedexSearchIndex> searchIndexes;
+    private final PokedexQueryEngine queryEngine;
+
+    // Phase name -> duration in milliseconds, in the order the phases ran
+    private final Map<String, Long> loadTimings = Collections.synchronizedMap(new LinkedHashMap<>());
 
     public Pokedex()
     {
+        this(PokedexSnapshot.DEFAULT_FILE);
+    }
+
+    /**
+     * Parses the json sources, without reading or writing a snapshot.
+     */
+    public static Pokedex fromSources()
+    {
+        return new Pokedex(null);
+    }
+
+    /**
+     * @param snapshotFile
+     *        The binary snapshot to load from and to keep up to date, or null to always parse the json sources
+     */
+    public Pokedex(Path snapshotFile)
+    {
+        long start = System.nanoTime();
+        long phaseStart = start;
+
+        this.snapshotFile = snapshotFile;
+        this.sourceFingerprint = snapshotFile == null ? 0 : fingerprintSources();
+
+        PokedexSnapshot snapshot = snapshotFile == null ? null : PokedexSnapshot.read(snapshotFile, sourceFingerprint);
+        if (snapshot == null && snapshotFile != null) {
+            // Another process may have been writing it, look again once we hold the lock
+            this.snapshotLock = lockSnapshot(snapshotFile);
+            snapshot = PokedexSnapshot.read(snapshotFile, sourceFingerprint);
+            if (snapshot != null) {
+                releaseSnapshotLock();
+            }
+        }
+        this.loadedFromSnapshot = snapshot != null;
+        if (snapshot != null) {
+            this.table = snapshot.getTable();
+            phaseStart = recordPhase("snapshot", phaseStart);
+        }
+        else {
+            try {
+                this.table = parseSources(phaseStart);
+            }
+            catch (RuntimeException e) {
+                // Don't keep other processes waiting on sources that can't be parsed, e.g. a half-written file
+                releaseSnapshotLock();
+                throw e;
+            }
+            phaseStart = System.nanoTime();
+        }
+
+        // Everything below is built from the table, so it never sees the excluded pokemon
+        this.dataIntegrity = PokedexIntegrityCheck.checkData(table);
+        for (int id : dataIntegrity.getExcludedIds()) {
+            table.exclude(id);
+        }
+        dataIntegrity.log();
+        phaseStart = recordPhase("integrity", phaseStart);
+
+        this.evolutionGraph = new EvolutionGraph(table);
+        phaseStart = recordPhase("evolutions", phaseStart);
+
+        this.rows = new PokemonRows(table, evolutionGraph);
+        phaseStart = recordPhase("rows", phaseStart);
+
+        this.pokemonById = new PokemonData[table.getMaxId() + 1];
+        List<PokemonData> pokemon = new ArrayList<>(table.size());
+        for (int id = 1; id <= table.getMaxId(); id++) {
+            if (table.contains(id)) {
+                pokemonById[id] = new PokemonData(table, evolutionGraph, id);
+                pokemon.add(pokemonById[id]);
+            }
+        }
+
+        this.allPokemon = Collections.unmodifiableList(pokemon);
+        MediaManifest manifest = MediaManifest.read(MediaManifest.DEFAULT_FILE);
+        if (snapshot != null) {
+            for (PokemonData pokemonData : allPokemon) {
+                String[] fileNames = snapshot.getMediaFileNames(pokemonData.getId());
+                if (fileNames != null) {
+                    pokemonData.getImages().preloadMediaFiles(fileNames);
+                }
+            }
+        }
+        else if (manifest != null) {
+            // Without a manifest, every media folder is scanned instead
+            for (PokemonData pokemonData : allPokemon) {
+                pokemonData.getImages().preloadMediaFiles(manifest);
+            }
+        }
+        if (snapshot != null && manifest != null) {
+            // The snapshot lists the galleries, uploads are still remembered by the content hashes of the manifest
+            for (PokemonData pokemonData : allPokemon) {
+                pokemonData.getImages().useMediaManifest(manifest);
+            }
+        }
+        phaseStart = recordPhase("views", phaseStart);
+
+        for (Generation generation : Generation.values()) {
+            pokemonByGeneration.put(generation, allPokemon.stream()
+                .filter(pokemonData -> generation.contains(pokemonData.getId()))
+                .toList());
+        }
+
+        this.searchIndexes = new EnumMap<>(PokemonData.Language.class);
+        for (PokemonData.Language language : PokemonData.Language.values()) {
+            searchIndexes.put(language, new PokedexSearchIndex(allPokemon, language));
+        }
+        phaseStart = recordPhase("search-index", phaseStart);
+
+        this.queryEngine = new PokedexQueryEngine(table);
+        recordPhase("query-index", phaseStart);
+
+        LOG.info("Loaded {} pokemon in {}ms {}", allPokemon.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), loadTimings);
+    }
+
+    private PokemonTable parseSources(long phaseStart) {
         // Load the Pokémon data and the referenced emoji data
         try (InputStream inputStream = Files.newInputStream(Paths.get(POKEDEX_DATA_FILE));
              InputStream emojiInputStream = Files.newInputStream(Paths.get(EMOJI_DATA_FILE)))
         {
             DataArray pokemonData = DataArray.fromJson(inputStream);
             DataObject emojiData = DataObject.fromJson(emojiInputStream);
+            phaseStart = recordPhase("parse", phaseStart);
 
-            for (int i = 0; i < pokemonData.length(); i++) {
-                DataObject data = pokemonData.getObject(i);
-                PokemonData pokemon = new PokemonData(data, emojiData);
-                pokedexData.put(pokemon.getId(), pokemon);
+            PokemonTable parsedTable = new PokemonTable(pokemonData, emojiData);
+            recordPhase("table", phaseStart);
 
-                // We only support the first gen
-                if (pokemon.getId() >= LAST_POKEMON_ID_IN_FIRST_GEN) {
-                    break;
-                }
-            }
+            return parsedTable;
         }
         catch (IOException e)
         {
@@ -47,15 +189,217 @@ public class Pokedex
         }
     }
 
+    /**
+     * @return The files a pokedex is parsed from, see {@link PokedexWatcher}
+     */
+    public static List<Path> getSourceFiles() {
+        return List.of(Paths.get(POKEDEX_DATA_FILE), Paths.get(EMOJI_DATA_FILE), MediaManifest.DEFAULT_FILE);
+    }
+
+    /**
+     * @return The fingerprint of every source a {@link PokedexSnapshot} is built from
+     */
+    public static long fingerprintSources() {
+        return PokedexSnapshot.fingerprint(
+            Paths.get(POKEDEX_DATA_FILE),
+            Paths.get(EMOJI_DATA_FILE),
+            MediaManifest.DEFAULT_FILE,
+            Paths.get(PokemonData.Images.LOCAL_MEDIA_IMAGES_FOLDER)
+        );
+    }
+
+    private static FileLock lockSnapshot(Path snapshotFile) {
+        Path lockFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".lock");
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                LOG.info("Waiting for another process to write the pokedex snapshot");
+                lock = channel.lock();
+            }
+
+            return lock;
+        }
+        catch (IOException | OverlappingFileLockException e) {
+            // Already held within this process, or locking is unsupported. Parse without coordinating.
+            LOG.debug("Could not lock {}", lockFile, e);
+            closeQuietly(channel);
+            return null;
+        }
+    }
+
+    private void releaseSnapshotLock() {
+        if (snapshotLock != null) {
+            closeQuietly(snapshotLock.channel());
+            snapshotLock = null;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+            LOG.debug("Failed to close {}", channel, e);
+        }
+    }
+
+    public boolean isLoadedFromSnapshot() {
+        return loadedFromSnapshot;
+    }
+
+    /**
+     * Writes a fresh snapshot if this pokedex was parsed from the json sources.
+     * <br>Other processes waiting for the snapshot continue once it is written, or once writing failed.
+     * <br>Scans any media folders that haven't been scanned yet, so call it off the interaction path.
+     */
+    public void saveSnapshot() {
+        if (snapshotFile == null || loadedFromSnapshot) {
+            return;
+        }
+
+        if (dataIntegrity.getExcludedCount() > 0) {
+            // The snapshot would hide the excluded pokemon from the next integrity check, parse the sources again instead
+            LOG.info("Not writing a pokedex snapshot while {} pokemon are excluded", dataIntegrity.getExcludedCount());
+            releaseSnapshotLock();
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            PokedexSnapshot.write(snapshotFile, this, sourceFingerprint);
+            recordPhase("snapshot-write", start);
+            LOG.info("Wrote pokedex snapshot to {} in {}ms", snapshotFile, loadTimings.get("snapshot-write"));
+        }
+        catch (IOException e) {
+            LOG.warn("Failed to write pokedex snapshot to {}", snapshotFile, e);
+        }
+        finally {
+            releaseSnapshotLock();
+        }
+    }
+
+    /**
+     * Scans the media gallery folders of every pokemon in parallel, then checks the galleries with the
+     * {@link PokedexIntegrityCheck}.
+     * <br>Folders are otherwise scanned on first access, so this only moves that work off the interaction path.
+     */
+    public void scanMediaImages() {
+        if (!loadedFromSnapshot) {
+            long start = System.nanoTime();
+            long imageCount = allPokemon.parallelStream()
+                .mapToLong(pokemonData -> pokemonData.getImages().getMediaImageCount())
+                .sum();
+            recordPhase("media-scan", start);
+
+            LOG.info("Scanned {} media images in {}ms", imageCount, loadTimings.get("media-scan"));
+        }
+
+        long start = System.nanoTime();
+        PokedexIntegrityCheck.Report report = PokedexIntegrityCheck.checkMedia(allPokemon);
+        recordPhase("media-integrity", start);
+        report.log();
+        this.mediaIntegrity = report;
+    }
+
+    /**
+     * @return The reports of the integrity checks that ran so far, the media check runs with {@link #scanMediaImages()}
+     */
+    public List<PokedexIntegrityCheck.Report> getIntegrityReports() {
+        PokedexIntegrityCheck.Report media = mediaIntegrity;
+        return media == null ? List.of(dataIntegrity) : List.of(dataIntegrity, media);
+    }
+
+    public int getIntegrityProblemCount(PokedexIntegrityCheck.Severity severity) {
+        int count = 0;
+        for (PokedexIntegrityCheck.Report report : getIntegrityReports()) {
+            count += report.getCount(severity);
+        }
+
+        return count;
+    }
+
+    /**
+     * @return How many pokemon of the sources were left out because of integrity errors
+     */
+    public int getExcludedPokemonCount() {
+        return dataIntegrity.getExcludedCount();
+    }
+
+    /**
+     * @return Durations in milliseconds of each load phase that has completed so far
+     */
+    public Map<String, Long> getLoadTimings() {
+        synchronized (loadTimings) {
+            return new LinkedHashMap<>(loadTimings);
+        }
+    }
+
+    private long recordPhase(String phase, long phaseStart) {
+        long now = System.nanoTime();
+        loadTimings.put(phase, TimeUnit.NANOSECONDS.toMillis(now - phaseStart));
+        return now;
+    }
+
     public int getTotalPokemon() {
-        return pokedexData.size();
+        return allPokemon.size();
     }
 
-    public HashMap<Integer, PokemonData> getPokemonMap() {
-        return pokedexData;
+    /**
+     * @param  generation
+     *         The generation to count, or null to count every loaded pokemon
+     */
+    public int getTotalPokemon(Generation generation) {
+        return getPokemon(generation).size();
+    }
+
+    public int getMaxId() {
+        return table.getMaxId();
     }
 
     public PokemonData getPokemon(int id) {
-        return pokedexData.get(id);
+        return id > 0 && id < pokemonById.length ? pokemonById[id] : null;
+    }
+
+    /**
+     * @param  generation
+     *         The generation to return, or null to return every loaded pokemon
+     *
+     * @return Immutable list of the matching pokemon, ordered by id
+     */
+    public List<PokemonData> getPokemon(Generation generation) {
+        return generation == null ? allPokemon : pokemonByGeneration.get(generation);
+    }
+
+    public PokemonTable getTable() {
+        return table;
+    }
+
+    public EvolutionGraph getEvolutionGraph() {
+        return evolutionGraph;
+    }
+
+    public PokemonRows getRows() {
+        return rows;
+    }
+
+    public PokedexQueryEngine getQueryEngine() {
+        return queryEngine;
+    }
+
+    public PokedexSearchIndex getSearchIndex() {
+        return getSearchIndex(PokemonData.Language.ENGLISH);
+    }
+
+    /**
+     * @return The index that labels its choices with the names in the provided language
+     */
+    public PokedexSearchIndex getSearchIndex(PokemonData.Language language) {
+        return searchIndexes.get(language);
     }
 }
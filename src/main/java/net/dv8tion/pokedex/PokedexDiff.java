@@ -0,0 +1,125 @@
+package net.dv8tion.pokedex;
+
+import java.util.Objects;
+
+/**
+ * Counts what changed between two loads of the {@link Pokedex}, for reporting reloads.
+ */
+public class PokedexDiff
+{
+    private int added;
+    private int removed;
+    private int changed;
+    private int emojisChanged;
+    private int galleriesChanged;
+
+    private PokedexDiff() {}
+
+    public static PokedexDiff between(Pokedex before, Pokedex after) {
+        PokemonTable oldTable = before.getTable();
+        PokemonTable newTable = after.getTable();
+
+        PokedexDiff diff = new PokedexDiff();
+        int maxId = Math.max(oldTable.getMaxId(), newTable.getMaxId());
+        for (int id = 1; id <= maxId; id++) {
+            boolean existed = id <= oldTable.getMaxId() && oldTable.contains(id);
+            boolean exists = id <= newTable.getMaxId() && newTable.contains(id);
+            if (!existed && !exists) {
+                continue;
+            }
+            if (!existed) {
+                diff.added++;
+                continue;
+            }
+            if (!exists) {
+                diff.removed++;
+                continue;
+            }
+
+            if (!sameData(oldTable, newTable, id)) {
+                diff.changed++;
+            }
+            if (!sameEmojis(oldTable, newTable, id)) {
+                diff.emojisChanged++;
+            }
+            if (!before.getPokemon(id).getImages().getMediaFileNames().equals(after.getPokemon(id).getImages().getMediaFileNames())) {
+                diff.galleriesChanged++;
+            }
+        }
+
+        return diff;
+    }
+
+    private static boolean sameData(PokemonTable oldTable, PokemonTable newTable, int id) {
+        for (PokemonData.Language language : PokemonData.Language.values()) {
+            if (!Objects.equals(oldTable.getName(id, language), newTable.getName(id, language))) {
+                return false;
+            }
+        }
+        for (PokemonData.Stat stat : PokemonData.Stat.values()) {
+            if (oldTable.getStat(id, stat) != newTable.getStat(id, stat)) {
+                return false;
+            }
+        }
+        if (oldTable.getNextEvolutionCount(id) != newTable.getNextEvolutionCount(id)) {
+            return false;
+        }
+        for (int i = 0; i < oldTable.getNextEvolutionCount(id); i++) {
+            if (oldTable.getNextEvolutionId(id, i) != newTable.getNextEvolutionId(id, i)
+                || !Objects.equals(oldTable.getNextEvolutionCriteria(id, i), newTable.getNextEvolutionCriteria(id, i))) {
+                return false;
+            }
+        }
+
+        return oldTable.getGeneration(id) == newTable.getGeneration(id)
+            && Objects.equals(oldTable.getSpecies(id), newTable.getSpecies(id))
+            && Objects.equals(oldTable.getDescription(id), newTable.getDescription(id))
+            && Objects.equals(oldTable.getThumbnailUrl(id), newTable.getThumbnailUrl(id))
+            && Objects.equals(oldTable.getHighResUrl(id), newTable.getHighResUrl(id))
+            && Objects.equals(oldTable.getTypes(id), newTable.getTypes(id))
+            && oldTable.getPrevEvolutionId(id) == newTable.getPrevEvolutionId(id)
+            && Objects.equals(oldTable.getPrevEvolutionCriteria(id), newTable.getPrevEvolutionCriteria(id));
+    }
+
+    private static boolean sameEmojis(PokemonTable oldTable, PokemonTable newTable, int id) {
+        for (int part = 0; part < PokemonTable.EMOJI_PARTS; part++) {
+            if (oldTable.getEmojiId(id, part) != newTable.getEmojiId(id, part)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public int getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return Number of pokemon whose data (names, stats, types, evolutions, ...) changed, not counting emojis
+     */
+    public int getChanged() {
+        return changed;
+    }
+
+    public int getEmojisChanged() {
+        return emojisChanged;
+    }
+
+    public int getGalleriesChanged() {
+        return galleriesChanged;
+    }
+
+    public boolean isEmpty() {
+        return added == 0 && removed == 0 && changed == 0 && emojisChanged == 0 && galleriesChanged == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "+" + added + " -" + removed + " ~" + changed + " pokemon, " + emojisChanged + " emoji and " + galleriesChanged + " gallery changes";
+    }
+}
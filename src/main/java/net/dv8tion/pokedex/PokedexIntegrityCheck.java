@@ -0,0 +1,295 @@
+package net.dv8tion.pokedex;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Checks every pokemon of the data set for problems the bot can't show properly, and reports all of them at once
+ * instead of failing on the first one.
+ *
+ * <p>Problems come in two severities:
+ * <ul>
+ *     <li>{@link Severity#ERROR}: the pokemon can't be shown at all, e.g. its entry couldn't be parsed or it has no
+ *         name. It is excluded from the {@link Pokedex}, and the bot starts with the rest of the data set.</li>
+ *     <li>{@link Severity#WARNING}: the pokemon is shown with less, e.g. without its emoji thumbnail when parts of
+ *         it are missing, without an evolution that isn't part of the data set, or with its artwork when its
+ *         media gallery is missing.</li>
+ * </ul>
+ *
+ * <p>The data is checked on the parsed {@link PokemonTable} while loading, see {@link #checkData(PokemonTable)}.
+ * The media galleries are checked once their folders were scanned, off the startup path, see
+ * {@link #checkMedia(List)}. Both check the pokemon in parallel.
+ *
+ * <p>Run {@link #main(String[])} (or the {@code pokedexCheck} gradle task) to check the sources before deploying
+ * them, it fails if any pokemon would be excluded.
+ */
+public final class PokedexIntegrityCheck
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PokedexIntegrityCheck.class);
+
+    // A card shows up to this many media images
+    static final int MIN_MEDIA_IMAGES = 4;
+
+    private PokedexIntegrityCheck() {}
+
+    /**
+     * Checks the fields, evolutions and emoji thumbnails of every pokemon in the table, including the entries the
+     * table couldn't parse.
+     */
+    public static Report checkData(PokemonTable table) {
+        long start = System.nanoTime();
+
+        List<Problem> problems = new ArrayList<>();
+        table.getUnidentifiedEntries().forEach((index, reason) ->
+            problems.add(new Problem(0, null, Severity.ERROR, "the entry at index " + index + " can't be read: " + reason)));
+        table.getRejectedEntries().forEach((id, reason) ->
+            problems.add(new Problem(id, null, Severity.ERROR, "its entry can't be read: " + reason)));
+
+        IntStream.rangeClosed(1, table.getMaxId())
+            .parallel()
+            .filter(table::contains)
+            .mapToObj(id -> checkData(table, id))
+            .forEachOrdered(problems::addAll);
+        problems.sort(Comparator.comparingInt(Problem::getPokemonId));
+
+        int checked = table.size() + table.getRejectedEntries().size() + table.getUnidentifiedEntries().size();
+        return new Report("data", checked, problems, System.nanoTime() - start);
+    }
+
+    private static List<Problem> checkData(PokemonTable table, int id) {
+        List<Problem> problems = new ArrayList<>(0);
+        String name = table.getName(id, PokemonData.Language.ENGLISH);
+
+        if (isBlank(name)) {
+            problems.add(new Problem(id, null, Severity.ERROR, "it has no english name"));
+        }
+        if (isBlank(table.getSpecies(id))) {
+            problems.add(new Problem(id, name, Severity.ERROR, "it has no species"));
+        }
+        if (table.getTypes(id).isEmpty()) {
+            problems.add(new Problem(id, name, Severity.ERROR, "it has no types"));
+        }
+        if (isBlank(table.getThumbnailUrl(id))) {
+            problems.add(new Problem(id, name, Severity.ERROR, "it has no thumbnail"));
+        }
+        if (isBlank(table.getDescription(id))) {
+            problems.add(new Problem(id, name, Severity.WARNING, "it has no description"));
+        }
+
+        // The evolution graph leaves these out
+        int prevId = table.getPrevEvolutionId(id);
+        if (prevId != 0) {
+            checkEvolution(table, id, name, prevId, "from", problems);
+        }
+        for (int i = 0; i < table.getNextEvolutionCount(id); i++) {
+            checkEvolution(table, id, name, table.getNextEvolutionId(id, i), "into", problems);
+        }
+
+        int emojiParts = table.getEmojiPartCount(id);
+        if (emojiParts != 0 && emojiParts != PokemonTable.EMOJI_PARTS) {
+            problems.add(new Problem(id, name, Severity.WARNING,
+                "only " + emojiParts + " of the " + PokemonTable.EMOJI_PARTS + " parts of its emoji thumbnail were uploaded, its rows show none"));
+        }
+
+        return problems;
+    }
+
+    private static void checkEvolution(PokemonTable table, int id, String name, int evolutionId, String direction, List<Problem> problems) {
+        if (evolutionId == id) {
+            problems.add(new Problem(id, name, Severity.WARNING, "it evolves " + direction + " itself"));
+        }
+        else if (!table.contains(evolutionId)) {
+            problems.add(new Problem(id, name, Severity.WARNING, "it evolves " + direction + " #" + evolutionId + ", which isn't part of the data set"));
+        }
+    }
+
+    /**
+     * Checks that every pokemon of the media gallery's generation has a folder with enough images for a card.
+     * <br>Scans any media folders that haven't been scanned yet, so call it off the interaction path.
+     */
+    public static Report checkMedia(List<PokemonData> pokemon) {
+        long start = System.nanoTime();
+
+        List<Problem> problems = new ArrayList<>();
+        pokemon.parallelStream()
+            .filter(pokemonData -> Generation.GEN_1.contains(pokemonData.getId()))
+            .map(PokedexIntegrityCheck::checkMedia)
+            .filter(Objects::nonNull)
+            .forEachOrdered(problems::add);
+
+        return new Report("media", pokemon.size(), problems, System.nanoTime() - start);
+    }
+
+    private static Problem checkMedia(PokemonData pokemonData) {
+        PokemonData.Images images = pokemonData.getImages();
+        int imageCount = images.getMediaImageCount();
+        if (imageCount >= MIN_MEDIA_IMAGES) {
+            return null;
+        }
+
+        String name = pokemonData.getName();
+        if (imageCount > 0) {
+            return new Problem(pokemonData.getId(), name, Severity.WARNING, "it has only " + imageCount + " media images");
+        }
+
+        String reason = images.hasMediaFolder() ? "its media folder has no images" : "it has no media folder";
+        return new Problem(pokemonData.getId(), name, Severity.WARNING, reason + ", its cards show its artwork instead");
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Loads the pokedex from its json sources, scans the media gallery and logs every problem found.
+     * <br>Exits with 1 if any pokemon would be excluded.
+     */
+    public static void main(String[] args) {
+        // A snapshot doesn't contain the pokemon that were excluded when it was written, checking it would miss them
+        Pokedex pokedex = Pokedex.fromSources();
+        if (pokedex.isLoadedFromSnapshot()) {
+            throw new IllegalStateException("The integrity check has to parse the json sources, not a snapshot");
+        }
+        pokedex.scanMediaImages();
+
+        if (pokedex.getIntegrityProblemCount(Severity.ERROR) > 0) {
+            System.exit(1);
+        }
+    }
+
+    public enum Severity {
+        /** The pokemon is excluded from the pokedex */
+        ERROR,
+        /** The pokemon is shown with less */
+        WARNING
+    }
+
+    public static class Problem {
+        // 0 for json entries without a usable id
+        private final int pokemonId;
+        private final String name;
+        private final Severity severity;
+        private final String message;
+
+        Problem(int pokemonId, String name, Severity severity, String message) {
+            this.pokemonId = pokemonId;
+            this.name = name;
+            this.severity = severity;
+            this.message = message;
+        }
+
+        public int getPokemonId() {
+            return pokemonId;
+        }
+
+        public Severity getSeverity() {
+            return severity;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            String pokemon = pokemonId > 0 ? " #" + pokemonId : "";
+            return severity + pokemon + (isBlank(name) ? "" : " " + name) + ": " + message;
+        }
+    }
+
+    /**
+     * The problems one check found, ordered by pokemon id. Entries without a usable id come first.
+     */
+    public static class Report {
+        private final String name;
+        private final int checked;
+        private final List<Problem> problems;
+        private final long durationNanos;
+
+        private Report(String name, int checked, List<Problem> problems, long durationNanos) {
+            this.name = name;
+            this.checked = checked;
+            this.problems = Collections.unmodifiableList(problems);
+            this.durationNanos = durationNanos;
+        }
+
+        public List<Problem> getProblems() {
+            return problems;
+        }
+
+        public int getCount(Severity severity) {
+            int count = 0;
+            for (Problem problem : problems) {
+                if (problem.severity == severity) {
+                    count++;
+                }
+            }
+
+            return count;
+        }
+
+        /**
+         * @return Ids of the pokemon with errors, which are left out of the pokedex
+         */
+        public Set<Integer> getExcludedIds() {
+            Set<Integer> ids = new TreeSet<>();
+            for (Problem problem : problems) {
+                if (problem.severity == Severity.ERROR && problem.pokemonId > 0) {
+                    ids.add(problem.pokemonId);
+                }
+            }
+
+            return ids;
+        }
+
+        /**
+         * @return How many pokemon are left out of the pokedex, including the json entries without a usable id
+         */
+        public int getExcludedCount() {
+            int unidentified = 0;
+            for (Problem problem : problems) {
+                if (problem.severity == Severity.ERROR && problem.pokemonId <= 0) {
+                    unidentified++;
+                }
+            }
+
+            return getExcludedIds().size() + unidentified;
+        }
+
+        public long getDurationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        }
+
+        /**
+         * Logs a summary and every problem, as a single message.
+         */
+        public void log() {
+            if (problems.isEmpty()) {
+                LOG.info("Checked the {} of {} pokemon in {}ms, found no problems", name, checked, getDurationMillis());
+                return;
+            }
+
+            StringBuilder message = new StringBuilder();
+            message.append("Checked the ").append(name).append(" of ").append(checked).append(" pokemon in ").append(getDurationMillis())
+                .append("ms, found ").append(getCount(Severity.ERROR)).append(" errors and ").append(getCount(Severity.WARNING)).append(" warnings");
+            int excluded = getExcludedCount();
+            if (excluded > 0) {
+                message.append(", excluding ").append(excluded).append(" pokemon");
+            }
+            for (Problem problem : problems) {
+                message.append("\n  ").append(problem);
+            }
+
+            if (excluded > 0) {
+                LOG.error(message.toString());
+            }
+            else {
+                LOG.warn(message.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package net.dv8tion.pokedex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filter and sort criteria for {@link PokedexQueryEngine}, e.g. "Fire types with at most 99 HP, highest Speed first".
+ *
+ * <p>Queries {@link #pack() pack} into 37 bits, so the result pages can link to each other through button ids.
+ */
+public class PokedexQuery
+{
+    /** Every pokemon type. The order is part of packed queries, only ever append to it. */
+    public static final List<String> TYPES = List.of(
+        "Normal", "Fire", "Water", "Grass", "Electric", "Ice", "Fighting", "Poison", "Ground",
+        "Flying", "Psychic", "Bug", "Rock", "Ghost", "Dragon", "Dark", "Steel", "Fairy"
+    );
+
+    public static final int MAX_STAT_VALUE = 255;
+
+    // Layout, from the least significant bit: type (5), second type (5), sort stat (3), ascending (1),
+    // filter stat (3), min (8), max (8), generation (4). Types and stats are stored + 1, so 0 means none.
+    private static final int SECOND_TYPE_SHIFT = 5;
+    private static final int SORT_SHIFT = 10;
+    private static final int ASCENDING_SHIFT = 13;
+    private static final int FILTER_SHIFT = 14;
+    private static final int MIN_SHIFT = 17;
+    private static final int MAX_SHIFT = 25;
+    private static final int GENERATION_SHIFT = 33;
+    public static final int PACKED_BITS = 37;
+
+    private final String type;
+    private final String secondType;
+    private final Generation generation;
+    private final PokemonData.Stat sortBy;
+    private final boolean ascending;
+    private final PokemonData.Stat filterStat;
+    private final int min;
+    private final int max;
+
+    /**
+     * @param type
+     *        Only include pokemon of this type, or null
+     * @param secondType
+     *        Only include pokemon that also have this type, or null
+     * @param generation
+     *        Only include pokemon of this generation, or null
+     * @param sortBy
+     *        The stat to sort by, or null to sort by id. Pokemon with unknown stats are left out when sorting.
+     * @param ascending
+     *        Whether the lowest value of {@code sortBy} comes first
+     * @param filterStat
+     *        Only include pokemon whose value of this stat lies within {@code min} and {@code max} (inclusive), or null
+     *
+     * @throws IllegalArgumentException
+     *         If a type is unknown or the bounds are out of range
+     */
+    public PokedexQuery(String type, String secondType, Generation generation,
+                        PokemonData.Stat sortBy, boolean ascending,
+                        PokemonData.Stat filterStat, int min, int max) {
+        if (type != null && !TYPES.contains(type)) {
+            throw new IllegalArgumentException("Unknown type: " + type);
+        }
+        if (secondType != null && !TYPES.contains(secondType)) {
+            throw new IllegalArgumentException("Unknown type: " + secondType);
+        }
+        if (min < 0 || max > MAX_STAT_VALUE || min > max) {
+            throw new IllegalArgumentException("Stat bounds must satisfy 0 <= min <= max <= " + MAX_STAT_VALUE);
+        }
+
+        this.type = type;
+        this.secondType = secondType;
+        this.generation = generation;
+        this.sortBy = sortBy;
+        this.ascending = ascending;
+        this.filterStat = filterStat;
+        this.min = filterStat == null ? 0 : min;
+        this.max = filterStat == null ? MAX_STAT_VALUE : max;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getSecondType() {
+        return secondType;
+    }
+
+    public Generation getGeneration() {
+        return generation;
+    }
+
+    public PokemonData.Stat getSortBy() {
+        return sortBy;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public PokemonData.Stat getFilterStat() {
+        return filterStat;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * @return A short summary, e.g. "Fire · Sp. Attack 100 - 255 · Highest Speed first"
+     */
+    public String describe() {
+        List<String> parts = new ArrayList<>();
+        if (type != null) {
+            parts.add(secondType == null ? type : type + "/" + secondType);
+        }
+        else if (secondType != null) {
+            parts.add(secondType);
+        }
+        if (generation != null) {
+            parts.add("Generation " + generation.getNumber());
+        }
+        if (filterStat != null) {
+            parts.add(filterStat.getKey() + " " + min + " - " + max);
+        }
+        parts.add(sortBy == null ? "By id" : (ascending ? "Lowest " : "Highest ") + sortBy.getKey() + " first");
+
+        return String.join(" · ", parts);
+    }
+
+    public long pack() {
+        return code(type)
+            | ((long) code(secondType) << SECOND_TYPE_SHIFT)
+            | ((long) code(sortBy) << SORT_SHIFT)
+            | ((ascending ? 1L : 0L) << ASCENDING_SHIFT)
+            | ((long) code(filterStat) << FILTER_SHIFT)
+            | ((long) min << MIN_SHIFT)
+            | ((long) max << MAX_SHIFT)
+            | ((long) (generation == null ? 0 : generation.getNumber()) << GENERATION_SHIFT);
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *         If the value is not a packed query
+     */
+    public static PokedexQuery unpack(long packed) {
+        if (packed < 0 || (packed >>> PACKED_BITS) != 0) {
+            throw new IllegalArgumentException("Not a packed query: " + packed);
+        }
+
+        int generation = (int) (packed >>> GENERATION_SHIFT) & 0xF;
+        if (generation > Generation.values().length) {
+            throw new IllegalArgumentException("Unknown generation: " + generation);
+        }
+
+        return new PokedexQuery(
+            type((int) packed & 0x1F),
+            type((int) (packed >>> SECOND_TYPE_SHIFT) & 0x1F),
+            generation == 0 ? null : Generation.fromNumber(generation),
+            stat((int) (packed >>> SORT_SHIFT) & 0x7),
+            ((packed >>> ASCENDING_SHIFT) & 1) == 1,
+            stat((int) (packed >>> FILTER_SHIFT) & 0x7),
+            (int) (packed >>> MIN_SHIFT) & 0xFF,
+            (int) (packed >>> MAX_SHIFT) & 0xFF
+        );
+    }
+
+    private static int code(String type) {
+        return type == null ? 0 : TYPES.indexOf(type) + 1;
+    }
+
+    private static int code(PokemonData.Stat stat) {
+        return stat == null ? 0 : stat.ordinal() + 1;
+    }
+
+    private static String type(int code) {
+        if (code > TYPES.size()) {
+            throw new IllegalArgumentException("Unknown type code: " + code);
+        }
+        return code == 0 ? null : TYPES.get(code - 1);
+    }
+
+    private static PokemonData.Stat stat(int code) {
+        PokemonData.Stat[] stats = PokemonData.Stat.values();
+        if (code > stats.length) {
+            throw new IllegalArgumentException("Unknown stat code: " + code);
+        }
+        return code == 0 ? null : stats[code - 1];
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof PokedexQuery && ((PokedexQuery) obj).pack() == pack();
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(pack());
+    }
+
+    @Override
+    public String toString() {
+        return "PokedexQuery[" + describe() + "]";
+    }
+}
@@ -0,0 +1,176 @@
+package net.dv8tion.pokedex;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+
+/**
+ * Answers {@link PokedexQuery queries} over the whole pokedex.
+ *
+ * <p>Every type and generation has a precomputed bitset of the pokemon ids it contains, and every stat has the
+ * ids of all pokemon sorted by that stat. A query intersects the bitsets of its filters and walks the sorted ids
+ * once, which takes a few microseconds for the full pokedex.
+ */
+public class PokedexQueryEngine
+{
+    private final PokemonTable table;
+
+    private final BitSet allPokemon = new BitSet();
+    // Indexed like PokedexQuery.TYPES
+    private final BitSet[] byType = new BitSet[PokedexQuery.TYPES.size()];
+    // Indexed by Generation ordinal
+    private final BitSet[] byGeneration = new BitSet[Generation.values().length];
+    // Indexed by Stat ordinal. Ids sorted by the stat from highest to lowest, ties by id. Unknown stats are left out.
+    // Ascending queries walk it backwards run by run, see execute.
+    private final int[][] sortedByStat = new int[PokemonData.Stat.values().length][];
+
+    public PokedexQueryEngine(PokemonTable table) {
+        this.table = table;
+
+        Arrays.setAll(byType, i -> new BitSet(table.getMaxId() + 1));
+        Arrays.setAll(byGeneration, i -> new BitSet(table.getMaxId() + 1));
+        for (int id = 1; id <= table.getMaxId(); id++) {
+            if (!table.contains(id)) {
+                continue;
+            }
+
+            allPokemon.set(id);
+            for (String type : table.getTypes(id)) {
+                int typeIndex = PokedexQuery.TYPES.indexOf(type);
+                if (typeIndex != -1) {
+                    byType[typeIndex].set(id);
+                }
+            }
+
+            Generation generation = Generation.fromNumber(table.getGeneration(id));
+            if (generation != null) {
+                byGeneration[generation.ordinal()].set(id);
+            }
+        }
+
+        for (PokemonData.Stat stat : PokemonData.Stat.values()) {
+            sortedByStat[stat.ordinal()] = allPokemon.stream()
+                .filter(id -> table.getStat(id, stat) >= 0)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingInt(id -> table.getStat(id, stat)).reversed().thenComparingInt(id -> id))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        }
+    }
+
+    /**
+     * @param  offset
+     *         Number of matching pokemon to skip
+     * @param  limit
+     *         Maximum number of pokemon ids to return
+     *
+     * @return The matching pokemon ids from {@code offset} on, and the total number of matches
+     */
+    public Result execute(PokedexQuery query, int offset, int limit) {
+        BitSet matches = (BitSet) allPokemon.clone();
+        if (query.getType() != null) {
+            matches.and(byType[PokedexQuery.TYPES.indexOf(query.getType())]);
+        }
+        if (query.getSecondType() != null) {
+            matches.and(byType[PokedexQuery.TYPES.indexOf(query.getSecondType())]);
+        }
+        if (query.getGeneration() != null) {
+            matches.and(byGeneration[query.getGeneration().ordinal()]);
+        }
+
+        PageCollector page = new PageCollector(offset, limit);
+        PokemonData.Stat sortBy = query.getSortBy();
+        if (sortBy == null) {
+            for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+                if (matchesFilter(query, id)) {
+                    page.add(id);
+                }
+            }
+        }
+        else if (!query.isAscending()) {
+            for (int id : sortedByStat[sortBy.ordinal()]) {
+                if (matches.get(id) && matchesFilter(query, id)) {
+                    page.add(id);
+                }
+            }
+        }
+        else {
+            // Walks the runs of equal stats from the lowest to the highest, but each run forward,
+            // so ties are ordered by id in both directions
+            int[] sorted = sortedByStat[sortBy.ordinal()];
+            int runEnd = sorted.length;
+            while (runEnd > 0) {
+                int value = table.getStat(sorted[runEnd - 1], sortBy);
+                int runStart = runEnd - 1;
+                while (runStart > 0 && table.getStat(sorted[runStart - 1], sortBy) == value) {
+                    runStart--;
+                }
+
+                for (int i = runStart; i < runEnd; i++) {
+                    int id = sorted[i];
+                    if (matches.get(id) && matchesFilter(query, id)) {
+                        page.add(id);
+                    }
+                }
+                runEnd = runStart;
+            }
+        }
+
+        return page.toResult();
+    }
+
+    private boolean matchesFilter(PokedexQuery query, int id) {
+        if (query.getFilterStat() == null) {
+            return true;
+        }
+
+        int value = table.getStat(id, query.getFilterStat());
+        return value >= query.getMin() && value <= query.getMax();
+    }
+
+    // Keeps the matches from the offset on, up to the limit, and counts all of them
+    private static class PageCollector {
+        private final int offset;
+        private final int[] ids;
+        private int size;
+        private int total;
+
+        private PageCollector(int offset, int limit) {
+            this.offset = offset;
+            this.ids = new int[limit];
+        }
+
+        private void add(int id) {
+            if (total >= offset && size < ids.length) {
+                ids[size++] = id;
+            }
+            total++;
+        }
+
+        private Result toResult() {
+            return new Result(Arrays.copyOf(ids, size), total);
+        }
+    }
+
+    public static class Result {
+        private final int[] pokemonIds;
+        private final int totalMatches;
+
+        private Result(int[] pokemonIds, int totalMatches) {
+            this.pokemonIds = pokemonIds;
+            this.totalMatches = totalMatches;
+        }
+
+        public int getPokemonCount() {
+            return pokemonIds.length;
+        }
+
+        public int getPokemonId(int index) {
+            return pokemonIds[index];
+        }
+
+        public int getTotalMatches() {
+            return totalMatches;
+        }
+    }
+}
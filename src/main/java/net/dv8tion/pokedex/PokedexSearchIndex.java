@@ -0,0 +1,463 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Immutable lookup structure used to answer autocomplete requests for the {@code pokedex-lookup} command.
+ *
+ * <p>Every searchable term (id, names in every language, types and species) is {@link #normalize(String) normalized}
+ * once and stored in a single sorted array, so a prefix lookup is a binary search followed by a short linear walk.
+ * When the prefix matches can't fill all choices we fall back to substring matches and then to typo-tolerant matches.
+ * Both only look at the terms sharing an n-gram (1 to 3 chars) with the query, taken from postings built once with
+ * the index, instead of scanning every term.
+ *
+ * <p>Queries are folded into a reused buffer, so a search only allocates its result list. Queries with non-ASCII
+ * characters, e.g. accents or another script, go through the unicode normalization, which allocates.
+ *
+ * <p>There is one index per {@link PokemonData.Language}. Its choices are labeled with the names in that language,
+ * which also rank above the names in other languages.
+ */
+public class PokedexSearchIndex
+{
+    public static final int MAX_RESULTS = OptionData.MAX_CHOICES;
+
+    // Lower rank wins. Ids and english names should always show up before a pokemon that only matched by type.
+    private static final byte RANK_ID = 0;
+    private static final byte RANK_NAME = 1;
+    // Names in the other languages
+    private static final byte RANK_LOCALIZED_NAME = 2;
+    private static final byte RANK_CATEGORY = 3;
+    private static final byte LOWEST_RANK = RANK_CATEGORY;
+
+    // Queries longer than this skip the fuzzy matcher. Rows are sized for the query plus the largest allowed distance.
+    private static final int MAX_FUZZY_LENGTH = 32;
+
+    // N-grams of up to this many chars have postings
+    private static final int MAX_GRAM_LENGTH = 3;
+
+    private static final ThreadLocal<int[][]> FUZZY_ROWS = ThreadLocal.withInitial(() -> new int[2][MAX_FUZZY_LENGTH + 3]);
+    private static final ThreadLocal<StringBuilder> QUERY_BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+
+    private final Command.Choice[] choices;
+    private final List<Command.Choice> defaultChoices;
+
+    // Parallel arrays, sorted by key
+    private final String[] keys;
+    private final int[] keyOwners;
+    private final byte[] keyRanks;
+
+    // Every n-gram of the keys, sorted by its gramCode. The keys containing gram i are postings[gramStarts[i]] up to
+    // postings[gramStarts[i + 1]], ordered like the keys.
+    private final long[] gramCodes;
+    private final int[] gramStarts;
+    private final int[] postings;
+
+    // One bit per key, marks the candidates of the typo-tolerant matcher. Cleared after every search.
+    private final ThreadLocal<long[]> fuzzyCandidates;
+
+    public PokedexSearchIndex(Collection<PokemonData> pokemon) {
+        this(pokemon, PokemonData.Language.ENGLISH);
+    }
+
+    public PokedexSearchIndex(Collection<PokemonData> pokemon, PokemonData.Language language) {
+        List<PokemonData> sortedPokemon = new ArrayList<>(pokemon);
+        sortedPokemon.sort(Comparator.comparingInt(PokemonData::getId));
+
+        this.choices = new Command.Choice[sortedPokemon.size()];
+
+        List<Term> terms = new ArrayList<>();
+        for (int owner = 0; owner < sortedPokemon.size(); owner++) {
+            PokemonData pokemonData = sortedPokemon.get(owner);
+            int id = pokemonData.getId();
+
+            String name = pokemonData.getDisplayName(language);
+            choices[owner] = new Command.Choice(name, id);
+
+            int firstTerm = terms.size();
+            addTerm(terms, firstTerm, String.valueOf(id), owner, RANK_ID);
+            addTerm(terms, firstTerm, id < 10 ? "00" + id : id < 100 ? "0" + id : String.valueOf(id), owner, RANK_ID);
+            addTerm(terms, firstTerm, name, owner, RANK_NAME);
+            for (PokemonData.Language other : PokemonData.Language.values()) {
+                if (other != language) {
+                    addTerm(terms, firstTerm, pokemonData.getName(other), owner, RANK_LOCALIZED_NAME);
+                }
+            }
+            for (String type : pokemonData.getTypes()) {
+                addTerm(terms, firstTerm, type, owner, RANK_CATEGORY);
+            }
+            addTerm(terms, firstTerm, pokemonData.getSpecies(), owner, RANK_CATEGORY);
+        }
+
+        terms.sort((a, b) -> compareIgnoreCase(a.key, b.key));
+
+        this.keys = new String[terms.size()];
+        this.keyOwners = new int[terms.size()];
+        this.keyRanks = new byte[terms.size()];
+        for (int i = 0; i < terms.size(); i++) {
+            Term term = terms.get(i);
+            keys[i] = term.key;
+            keyOwners[i] = term.owner;
+            keyRanks[i] = term.rank;
+        }
+
+        this.defaultChoices = List.of(Arrays.copyOf(choices, Math.min(MAX_RESULTS, choices.length)));
+
+        // Keys are visited in order, so every posting list ends up ordered like the keys
+        Map<Long, List<Integer>> keysByGram = new HashMap<>();
+        for (int key = 0; key < keys.length; key++) {
+            for (int length = 1; length <= MAX_GRAM_LENGTH; length++) {
+                for (int start = 0; start + length <= keys[key].length(); start++) {
+                    List<Integer> gramKeys = keysByGram.computeIfAbsent(gramCode(keys[key], start, length), code -> new ArrayList<>());
+                    if (gramKeys.isEmpty() || gramKeys.get(gramKeys.size() - 1) != key) {
+                        gramKeys.add(key);
+                    }
+                }
+            }
+        }
+
+        this.gramCodes = keysByGram.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        this.gramStarts = new int[gramCodes.length + 1];
+        this.postings = new int[keysByGram.values().stream().mapToInt(List::size).sum()];
+        int position = 0;
+        for (int gram = 0; gram < gramCodes.length; gram++) {
+            gramStarts[gram] = position;
+            for (int key : keysByGram.get(gramCodes[gram])) {
+                postings[position++] = key;
+            }
+        }
+        gramStarts[gramCodes.length] = position;
+
+        int candidateWords = (keys.length + 63) / 64;
+        this.fuzzyCandidates = ThreadLocal.withInitial(() -> new long[candidateWords]);
+    }
+
+    private static void addTerm(List<Term> terms, int firstTermOfOwner, String key, int owner, byte rank) {
+        if (key == null) {
+            return;
+        }
+
+        Term term = new Term(key, owner, rank);
+        if (term.key.isEmpty()) {
+            return;
+        }
+
+        // Drop exact duplicates of the same pokemon (e.g. a french name that equals the english one)
+        for (int i = firstTermOfOwner; i < terms.size(); i++) {
+            if (terms.get(i).key.equals(term.key)) {
+                return;
+            }
+        }
+
+        terms.add(term);
+    }
+
+    /**
+     * Finds up to {@link #MAX_RESULTS} choices matching the provided user input.
+     * <br>Results are ordered by match quality: prefix matches, then substring matches, then close misspellings.
+     *
+     * @param  query
+     *         The raw value the user has typed so far
+     *
+     * @return The matching choices, never null
+     */
+    public List<Command.Choice> search(String query) {
+        if (query == null || query.isBlank()) {
+            return defaultChoices;
+        }
+
+        CharSequence normalizedQuery = normalizeQuery(query);
+        if (normalizedQuery.length() == 0) {
+            return defaultChoices;
+        }
+
+        List<Command.Choice> result = new ArrayList<>(MAX_RESULTS);
+
+        int start = lowerBound(normalizedQuery);
+        int end = start;
+        while (end < keys.length && regionMatches(keys[end], 0, normalizedQuery)) {
+            end++;
+        }
+
+        for (byte rank = RANK_ID; rank <= LOWEST_RANK && result.size() < MAX_RESULTS; rank++) {
+            for (int i = start; i < end && result.size() < MAX_RESULTS; i++) {
+                if (keyRanks[i] == rank) {
+                    addChoice(result, keyOwners[i]);
+                }
+            }
+        }
+
+        // Only the keys containing the query's rarest n-gram can contain the query
+        int rarestGram = findRarestGram(normalizedQuery, 0, normalizedQuery.length());
+        if (rarestGram != -1) {
+            for (int i = gramStarts[rarestGram]; i < gramStarts[rarestGram + 1] && result.size() < MAX_RESULTS; i++) {
+                int key = postings[i];
+                if (containsIgnoreCase(keys[key], normalizedQuery)) {
+                    addChoice(result, keyOwners[key]);
+                }
+            }
+        }
+
+        // Only bother with typo tolerance when the user has typed enough for it to be meaningful
+        int length = normalizedQuery.length();
+        if (length >= 3 && length <= MAX_FUZZY_LENGTH && result.size() < MAX_RESULTS) {
+            addFuzzyMatches(result, normalizedQuery, length <= 5 ? 1 : 2);
+        }
+
+        return result;
+    }
+
+    private void addFuzzyMatches(List<Command.Choice> result, CharSequence query, int maxDistance) {
+        long[] candidates = fuzzyCandidates.get();
+
+        // Split into maxDistance + 1 pieces, a key within maxDistance edits contains at least one of them unchanged
+        int pieces = maxDistance + 1;
+        for (int piece = 0; piece < pieces; piece++) {
+            int from = query.length() * piece / pieces;
+            int to = query.length() * (piece + 1) / pieces;
+            int gram = findRarestGram(query, from, to);
+            if (gram == -1) {
+                continue;
+            }
+
+            for (int i = gramStarts[gram]; i < gramStarts[gram + 1]; i++) {
+                candidates[postings[i] >>> 6] |= 1L << postings[i];
+            }
+        }
+
+        // Visits the candidates in key order, like a scan over every key would
+        for (int word = 0; word < candidates.length; word++) {
+            long bits = candidates[word];
+            candidates[word] = 0;
+            while (bits != 0 && result.size() < MAX_RESULTS) {
+                int key = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (prefixDistance(query, keys[key], maxDistance) <= maxDistance) {
+                    addChoice(result, keyOwners[key]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the n-gram of {@code text[from, to)} with the fewest keys, using the longest n-grams that fit.
+     *
+     * @return Index of the n-gram, or -1 if no key contains all of them (and therefore the text)
+     */
+    private int findRarestGram(CharSequence text, int from, int to) {
+        int length = Math.min(to - from, MAX_GRAM_LENGTH);
+        int rarest = -1;
+        for (int start = from; start + length <= to; start++) {
+            int gram = Arrays.binarySearch(gramCodes, gramCode(text, start, length));
+            if (gram < 0) {
+                return -1;
+            }
+            if (rarest == -1 || gramStarts[gram + 1] - gramStarts[gram] < gramStarts[rarest + 1] - gramStarts[rarest]) {
+                rarest = gram;
+            }
+        }
+
+        return rarest;
+    }
+
+    /**
+     * Packs up to {@link #MAX_GRAM_LENGTH} chars, case folded, together with their count.
+     */
+    private static long gramCode(CharSequence text, int start, int length) {
+        long code = length;
+        for (int i = start; i < start + length; i++) {
+            code = (code << 16) | fold(text.charAt(i));
+        }
+
+        return code;
+    }
+
+    /**
+     * Folds the query into the thread's reused buffer, see {@link #normalize(String)}.
+     *
+     * @return The folded query, only valid until the thread's next search
+     */
+    private static CharSequence normalizeQuery(String query) {
+        StringBuilder buffer = QUERY_BUFFER.get();
+        buffer.setLength(0);
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c >= 0x80) {
+                // Accents, gender signs and other scripts need the unicode normalization
+                return normalize(query);
+            }
+            if (Character.isLetterOrDigit(c)) {
+                buffer.append(Character.toLowerCase(c));
+            }
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Folds a name into the form the index compares: lower case, without accents, whitespace or punctuation,
+     * and with gender signs spelled out. For example {@code Farfetch'd} becomes {@code farfetchd},
+     * {@code Mr. Mime} {@code mrmime}, {@code Nidoran♀} {@code nidoranf} and {@code Flabébé} {@code flabebe}.
+     * <br>Marks that are part of a letter in other scripts, like the dakuten of {@code ガ}, are kept.
+     */
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (c == '♀') {
+                normalized.append('f');
+            }
+            else if (c == '♂') {
+                normalized.append('m');
+            }
+            else if (Character.isLetterOrDigit(c) || isKeptMark(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+
+        return Normalizer.normalize(normalized, Normalizer.Form.NFC);
+    }
+
+    private static boolean isKeptMark(char c) {
+        // Accents of latin letters (U+0300 - U+036F) were split off their letter by the decomposition and are dropped
+        return Character.getType(c) == Character.NON_SPACING_MARK && (c < '\u0300' || c > '\u036F');
+    }
+
+    private int lowerBound(CharSequence query) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareIgnoreCase(keys[mid], query) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    private void addChoice(List<Command.Choice> result, int owner) {
+        Command.Choice choice = choices[owner];
+        for (int i = 0; i < result.size(); i++) {
+            if (result.get(i) == choice) {
+                return;
+            }
+        }
+
+        result.add(choice);
+    }
+
+    private static boolean containsIgnoreCase(String key, CharSequence query) {
+        for (int offset = 0; offset + query.length() <= key.length(); offset++) {
+            if (regionMatches(key, offset, query)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return Whether the key contains the query at the offset, ignoring case
+     */
+    private static boolean regionMatches(String key, int offset, CharSequence query) {
+        if (offset + query.length() > key.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < query.length(); i++) {
+            if (fold(key.charAt(offset + i)) != fold(query.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Orders like {@link String#CASE_INSENSITIVE_ORDER}, but also compares against the reused query buffer.
+     */
+    private static int compareIgnoreCase(CharSequence a, CharSequence b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char first = fold(a.charAt(i));
+            char second = fold(b.charAt(i));
+            if (first != second) {
+                return first - second;
+            }
+        }
+
+        return a.length() - b.length();
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Smallest edit distance between {@code query} and any prefix of {@code key}, giving up early once every
+     * candidate exceeds {@code maxDistance}.
+     */
+    private static int prefixDistance(CharSequence query, String key, int maxDistance) {
+        if (key.length() < query.length() - maxDistance) {
+            return maxDistance + 1;
+        }
+
+        int keyLength = Math.min(key.length(), query.length() + maxDistance);
+
+        int[][] rows = FUZZY_ROWS.get();
+        int[] previous = rows[0];
+        int[] current = rows[1];
+
+        for (int j = 0; j <= keyLength; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= query.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            char queryChar = fold(query.charAt(i - 1));
+
+            for (int j = 1; j <= keyLength; j++) {
+                int cost = fold(key.charAt(j - 1)) == queryChar ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                current[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+
+            if (rowMinimum > maxDistance) {
+                return rowMinimum;
+            }
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int best = Integer.MAX_VALUE;
+        for (int j = 0; j <= keyLength; j++) {
+            best = Math.min(best, previous[j]);
+        }
+
+        return best;
+    }
+
+    private static class Term {
+        private final String key;
+        private final int owner;
+        private final byte rank;
+
+        private Term(String key, int owner, byte rank) {
+            this.key = normalize(key);
+            this.owner = owner;
+            this.rank = rank;
+        }
+    }
+}
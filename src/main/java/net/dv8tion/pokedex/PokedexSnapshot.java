@@ -0,0 +1,216 @@
+package net.dv8tion.pokedex;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * Compact binary copy of everything {@link Pokedex} derives from its sources: the {@link PokemonTable}
+ * (which includes the emoji ids) and the media gallery file names of every pokemon.
+ *
+ * <p>The snapshot records a fingerprint of the source files it was built from. {@link #read(Path, long)} refuses
+ * a snapshot whose fingerprint doesn't match the current sources, in which case the pokedex falls back to
+ * parsing the JSON files and writes a fresh snapshot once it is done.
+ *
+ * <p>Run {@link #main(String[])} (or the {@code pokedexSnapshot} gradle task) to build the snapshot ahead of time.
+ */
+public class PokedexSnapshot
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PokedexSnapshot.class);
+
+    public static final Path DEFAULT_FILE = Paths.get("pokemon-data/pokedex.snapshot");
+
+    private static final int MAGIC = 0x504B4458; // "PKDX"
+    private static final int FORMAT_VERSION = 1;
+
+    private final PokemonTable table;
+    // Indexed by pokemon id. Null when the snapshot has no media information for the slot.
+    private final String[][] mediaFileNames;
+
+    private PokedexSnapshot(PokemonTable table, String[][] mediaFileNames) {
+        this.table = table;
+        this.mediaFileNames = mediaFileNames;
+    }
+
+    public PokemonTable getTable() {
+        return table;
+    }
+
+    /**
+     * @return Names of the media gallery files of the pokemon, relative to its media folder
+     */
+    public String[] getMediaFileNames(int pokemonId) {
+        return mediaFileNames[pokemonId];
+    }
+
+    /**
+     * Memory-maps and reads the snapshot.
+     *
+     * @param  file
+     *         The snapshot file
+     * @param  expectedFingerprint
+     *         The {@link #fingerprint(Path...)} of the current source files
+     *
+     * @return The snapshot, or null if it is missing, stale or unreadable
+     */
+    public static PokedexSnapshot read(Path file, long expectedFingerprint) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                LOG.info("Ignoring pokedex snapshot {}, it was written in an unknown format", file);
+                return null;
+            }
+
+            if (buffer.getLong() != expectedFingerprint) {
+                LOG.info("Ignoring pokedex snapshot {}, the source data has changed since it was written", file);
+                return null;
+            }
+
+            PokemonTable table = new PokemonTable(buffer);
+
+            String[][] mediaFileNames = new String[table.getMaxId() + 1][];
+            for (int id = 0; id < mediaFileNames.length; id++) {
+                int count = buffer.getInt();
+                if (count == -1) {
+                    continue;
+                }
+
+                mediaFileNames[id] = new String[count];
+                for (int i = 0; i < count; i++) {
+                    mediaFileNames[id][i] = readString(buffer);
+                }
+            }
+
+            return new PokedexSnapshot(table, mediaFileNames);
+        }
+        catch (IOException | BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e)
+        {
+            LOG.warn("Failed to read pokedex snapshot {}, falling back to the json sources", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the provided pokedex. Every media folder is scanned if it hasn't been already.
+     * <br>The file is written next to its destination first and moved into place, so readers never see a partial file.
+     */
+    public static void write(Path file, Pokedex pokedex, long fingerprint) throws IOException {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(fingerprint);
+
+            PokemonTable table = pokedex.getTable();
+            table.write(out);
+
+            for (int id = 0; id <= table.getMaxId(); id++) {
+                PokemonData pokemonData = pokedex.getPokemon(id);
+                if (pokemonData == null) {
+                    out.writeInt(-1);
+                    continue;
+                }
+
+                List<String> fileNames = pokemonData.getImages().getMediaFileNames();
+                out.writeInt(fileNames.size());
+                for (String fileName : fileNames) {
+                    writeString(out, fileName);
+                }
+            }
+        }
+
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Cheap fingerprint of the source data: size and modification time of each file, and of each direct child
+     * for directories. Changing any source, or adding and removing media folders, changes the fingerprint.
+     */
+    public static long fingerprint(Path... sources) {
+        long hash = FORMAT_VERSION;
+        for (Path source : sources) {
+            hash = 31 * hash + fingerprintOf(source);
+            if (Files.isDirectory(source)) {
+                // Directory iteration order isn't guaranteed, so combine the children order-independently
+                try (DirectoryStream<Path> children = Files.newDirectoryStream(source))
+                {
+                    long childrenHash = 0;
+                    for (Path child : children) {
+                        childrenHash += mix(fingerprintOf(child));
+                    }
+                    hash = 31 * hash + childrenHash;
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        return hash;
+    }
+
+    private static long mix(long value) {
+        // splitmix64 finalizer, so summing child fingerprints doesn't cancel out simple differences
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private static long fingerprintOf(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return 31 * (31L * path.getFileName().toString().hashCode() + attributes.size()) + attributes.lastModifiedTime().toMillis();
+        }
+        catch (NoSuchFileException e) {
+            return 0;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Builds the snapshot ahead of time, e.g. while building a container image.
+     *
+     * @param args
+     *        Optionally, the path of the snapshot to write. Defaults to {@link #DEFAULT_FILE}.
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = args.length > 0 ? Paths.get(args[0]) : DEFAULT_FILE;
+
+        Pokedex pokedex = new Pokedex(null);
+        pokedex.scanMediaImages();
+
+        write(file, pokedex, Pokedex.fingerprintSources());
+        LOG.info("Wrote pokedex snapshot to {} ({} bytes)", file.toAbsolutePath(), Files.size(file));
+    }
+}
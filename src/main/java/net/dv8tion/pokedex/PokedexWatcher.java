@@ -0,0 +1,105 @@
+package net.dv8tion.pokedex;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the pokedex source files and calls back once they have changed.
+ *
+ * <p>Tools like {@code emoji-split-and-upload.sh} rewrite a file in several steps, so the callback only runs once
+ * no further changes arrived for {@link #QUIET_PERIOD_MILLIS}. It runs on the watcher thread, never on an
+ * interaction thread.
+ */
+public class PokedexWatcher implements AutoCloseable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PokedexWatcher.class);
+
+    public static final long QUIET_PERIOD_MILLIS = 1000;
+
+    private final Set<Path> files = new HashSet<>();
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * @param files
+     *        The files to watch. They don't need to exist yet.
+     * @param onChange
+     *        Called after the files changed
+     */
+    public PokedexWatcher(Collection<Path> files, Runnable onChange) throws IOException {
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        // Only directories can be watched. Editors and scripts often replace files instead of
+        // writing them in place, which shows up as a create.
+        Set<Path> directories = new HashSet<>();
+        for (Path file : files) {
+            Path absolute = file.toAbsolutePath().normalize();
+            this.files.add(absolute);
+            if (directories.add(absolute.getParent())) {
+                absolute.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        }
+
+        this.thread = new Thread(this::run, "pokedex-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+        LOG.info("Watching {} for changes", files);
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                // Block until something changes, then keep collecting until the files are quiet
+                boolean changed = poll(watchService.take());
+                WatchKey key;
+                while ((key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= poll(key);
+                }
+
+                if (changed) {
+                    try {
+                        onChange.run();
+                    }
+                    catch (RuntimeException e) {
+                        LOG.error("Failed to handle a change of the pokedex sources", e);
+                    }
+                }
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException e) {
+            LOG.debug("Stopped watching {}", files);
+        }
+    }
+
+    private boolean poll(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+            }
+            else if (files.contains(((Path) key.watchable()).resolve((Path) event.context()))) {
+                changed = true;
+            }
+        }
+        key.reset();
+
+        return changed;
+    }
+}
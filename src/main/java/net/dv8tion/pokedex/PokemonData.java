@@ -1,51 +1,91 @@
 package net.dv8tion.pokedex;
 
-import net.dv8tion.jda.api.utils.data.DataArray;
-import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.api.interactions.DiscordLocale;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static net.dv8tion.pokedex.MyTestBot.HOSTED_ASSETS_ROOT;
 
+/**
+ * Read-only view of a single pokemon stored in a {@link PokemonTable}.
+ */
 public class PokemonData
 {
-    public static final Random rand = new Random();
+    private static final Path MEDIA_ROOT = Paths.get(Images.LOCAL_MEDIA_IMAGES_FOLDER);
 
-    private final DataObject data;
+    private final PokemonTable table;
+    private final int id;
     private final Stats stats;
     private final Images images;
+    private final String mediaFolderName;
 
-    // We are using Optional to simulate a 3 state lazy-load system:
-    // 1. null           -> Evolutions never accessed. Requires a load.
-    // 2. Optional(null) -> Evolutions loaded. None present
-    // 3. Optional(data) -> Evolutions loaded. Pokemon has evolution
-    private Optional<Evolution> prevEvolution;
-    private Optional<List<Evolution>> nextEvolution;
-
-    public PokemonData(DataObject data, DataObject emojiData) {
-        this.data = data;
-        this.stats = new Stats(this.data.getObject("base"));
-        this.images = new Images(this.data.getObject("image"), emojiData);
+    // Resolved from the evolution graph up front, so the view stays immutable. Null if there are none.
+    private final Evolution prevEvolution;
+    private final List<Evolution> nextEvolutions;
+
+    public PokemonData(PokemonTable table, EvolutionGraph evolutions, int id) {
+        this.table = table;
+        this.id = id;
+        this.stats = new Stats(table, id);
+        this.images = new Images();
+        this.mediaFolderName = toMediaFolderName(table.getName(id, Language.ENGLISH));
+
+        int parentId = evolutions.getParentId(id);
+        this.prevEvolution = parentId == 0 ? null : new Evolution(parentId, evolutions.getParentCriteria(id));
+
+        int childCount = evolutions.getChildCount(id);
+        if (childCount == 0) {
+            this.nextEvolutions = null;
+        }
+        else {
+            Evolution[] next = new Evolution[childCount];
+            for (int i = 0; i < childCount; i++) {
+                int childId = evolutions.getChildId(id, i);
+                next[i] = new Evolution(childId, evolutions.getParentCriteria(childId));
+            }
+            this.nextEvolutions = List.of(next);
+        }
     }
 
     public int getId() {
-        return this.data.getInt("id");
+        return id;
+    }
+
+    public Generation getGeneration() {
+        return Generation.fromNumber(table.getGeneration(id));
     }
 
     public String getName() {
-        return this.data.getObject("name").getString("english");
+        return getName(Language.ENGLISH);
+    }
+
+    public String getName(Language language) {
+        return table.getName(id, language);
+    }
+
+    /**
+     * @return The name to show in the language, the english name if the data has none in it
+     */
+    public String getDisplayName(Language language) {
+        return PokemonRows.getName(table, id, language);
     }
 
     private String getMediaFolderName() {
+        return mediaFolderName;
+    }
+
+    private static String toMediaFolderName(String name) {
         // These Pokémon specifically have names that don't map well to our folder structure
         // that contains the additional images
-        switch (this.getName()) {
+        switch (name) {
             case "Nidoran♀":
             case "Nidorina": return "Nidorina";
             case "Nidoran♂":
@@ -54,22 +94,20 @@ public class PokemonData
             case "Farfetch'd": return "Farfetchd";
         }
 
-        String first = getName().substring(0, 1).toUpperCase();
-        return first + getName().substring(1).toLowerCase();
+        String first = name.substring(0, 1).toUpperCase();
+        return first + name.substring(1).toLowerCase();
     }
 
     public String getDescription() {
-        return this.data.getString("description");
+        return table.getDescription(id);
     }
 
     public String getSpecies() {
-        return this.data.getString("species");
+        return table.getSpecies(id);
     }
 
     public List<String> getTypes() {
-        return this.data.getArray("type")
-                .stream(DataArray::getString)
-                .collect(Collectors.toList());
+        return table.getTypes(id);
     }
 
     public Stats getStats() {
@@ -80,142 +118,298 @@ public class PokemonData
         return images;
     }
 
-    public DataObject getRawData() {
-        return data;
-    }
-
     public boolean hasEvolutions() {
-        return this.getPreviousEvolution() != null || this.getNextEvolutions() != null;
+        return prevEvolution != null || nextEvolutions != null;
     }
 
+    /**
+     * @return The evolution this pokemon evolves from, or null
+     */
     public Evolution getPreviousEvolution() {
-        if (prevEvolution == null) {
-            DataArray array = this.data.getObject("evolution")
-                .optArray("prev")
-                .orElse(null);
-
-            prevEvolution = Optional.ofNullable(makeEvolution(array));
-        }
-
-        return prevEvolution.orElse(null);
+        return prevEvolution;
     }
 
+    /**
+     * @return The evolutions of this pokemon (more than one for branching evolutions like Eevee's), or null
+     */
     public List<Evolution> getNextEvolutions() {
-        if (nextEvolution == null) {
-            DataArray parentArray = this.data.getObject("evolution")
-                .optArray("next")
-                .orElse(null);
+        return nextEvolutions;
+    }
 
-            if (parentArray == null) {
-                nextEvolution = Optional.empty();
-                return null;
+    public class Images {
+        static final String LOCAL_MEDIA_IMAGES_FOLDER = "pokemon-data/images/media-gallery";
+        private static final String HOSTED_MEDIA_IMAGES_FOLDER = HOSTED_ASSETS_ROOT + "/pokemon-data/images/media-gallery";
+
+        // Scanned on first access (or by Pokedex#scanMediaImages), so startup doesn't wait on directory IO
+        private volatile MediaFiles mediaFiles;
+        // File names known ahead of time, turned into paths on first access instead of scanning the folder
+        private volatile String[] preloadedFileNames;
+        // Knows the content hash of every gallery file, null without a manifest
+        private volatile MediaManifest manifest;
+
+        /**
+         * Whether the media folder of this pokemon has been scanned yet.
+         */
+        public boolean isMediaScanned() {
+            return mediaFiles != null;
+        }
+
+        private MediaFiles getMediaFiles() {
+            MediaFiles files = mediaFiles;
+            if (files == null) {
+                synchronized (this) {
+                    files = mediaFiles;
+                    if (files == null) {
+                        String[] fileNames = preloadedFileNames;
+                        files = fileNames != null ? resolveMediaFiles(fileNames) : scanMediaFiles();
+                        mediaFiles = files;
+                    }
+                }
             }
 
-            nextEvolution = Optional.of(parentArray
-                .stream(DataArray::getArray)
-                .map(this::makeEvolution)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList())
-            );
+            return files;
         }
 
-        return nextEvolution.orElse(null);
-    }
+        /**
+         * Uses a list of media files known ahead of time (e.g. from a {@link PokedexSnapshot}) instead of scanning the folder.
+         *
+         * @param fileNames
+         *        Names of the media files, relative to the media folder of this pokemon
+         */
+        void preloadMediaFiles(String[] fileNames) {
+            this.preloadedFileNames = fileNames;
+        }
 
-    private Evolution makeEvolution(DataArray evolutionData) {
-        if (evolutionData == null) {
-            return null;
+        /**
+         * Uses the deduplicated gallery listed in the manifest, if it knows the media folder of this pokemon.
+         */
+        void preloadMediaFiles(MediaManifest manifest) {
+            String[] fileNames = manifest.getGalleryFileNames(getMediaFolderName());
+            if (fileNames != null) {
+                preloadMediaFiles(fileNames);
+            }
+            useMediaManifest(manifest);
         }
 
-        int pokemonId = evolutionData.getInt(0);
-        if (pokemonId > Pokedex.LAST_POKEMON_ID_IN_FIRST_GEN) {
-            return null;
+        /**
+         * Takes the content hashes of the media files from the manifest, see {@link #getMediaKey(Path)}.
+         */
+        void useMediaManifest(MediaManifest manifest) {
+            this.manifest = manifest;
         }
 
-        String criteria = evolutionData.getString(1);
+        /**
+         * @return A key that identifies the content of a media file of this pokemon across the whole gallery: its
+         *         SHA-256 from the manifest, or its path within the gallery (e.g. {@code Abra/00000000--compressed.avif})
+         *         if the manifest doesn't know it. Identical pictures of different pokemon share their hash.
+         */
+        public String getMediaKey(Path path) {
+            String relativePath = MEDIA_ROOT.relativize(path).toString().replace(File.separatorChar, '/');
+            MediaManifest mediaManifest = manifest;
+            String sha256 = mediaManifest == null ? null : mediaManifest.getSha256(relativePath);
+            return sha256 != null ? sha256 : relativePath;
+        }
 
-        return new Evolution(
-            pokemonId,
-            criteria
-        );
-    }
+        private MediaFiles resolveMediaFiles(String[] fileNames) {
+            Path folder = getMediaFolderPath();
+            if (folder == null || fileNames.length == 0) {
+                return MediaFiles.EMPTY;
+            }
 
-    public class Images {
-        private static final String LOCAL_MEDIA_IMAGES_FOLDER = "pokemon-data/images/media-gallery";
-        private static final String HOSTED_MEDIA_IMAGES_FOLDER = HOSTED_ASSETS_ROOT + "/pokemon-data/images/media-gallery";
+            List<Path> paths = new ArrayList<>(fileNames.length);
+            for (String fileName : fileNames) {
+                // Files shared with other pokemon are listed as ../Other/file.avif
+                paths.add(folder.resolve(fileName).normalize());
+            }
+
+            return createMediaFiles(paths);
+        }
+
+        /**
+         * @return Names of the media files of this pokemon, relative to its media folder
+         */
+        public List<String> getMediaFileNames() {
+            String[] fileNames = preloadedFileNames;
+            if (fileNames != null) {
+                return List.of(fileNames);
+            }
 
-        private final DataObject data;
-        private final List<Path> mediaImages = new ArrayList<>();
-        private final List<String> mediaImagesUrls = new ArrayList<>();
-        private final List<String> emojiThumbnailIds = new ArrayList<>();
+            List<Path> paths = getMediaFiles().paths;
+            if (paths.isEmpty()) {
+                return List.of();
+            }
 
-        public Images(DataObject data, DataObject emojiData) {
-            this.data = data;
+            Path folder = getMediaFolderPath();
+            return paths.stream()
+                .map(path -> folder.relativize(path).toString())
+                .toList();
+        }
 
-            Path expandedImagesPath = Paths.get(LOCAL_MEDIA_IMAGES_FOLDER, getMediaFolderName());
-            if (!Files.exists(expandedImagesPath)) {
-                throw new RuntimeException(String.format("Failed to find expanded images directory: %s", expandedImagesPath.toAbsolutePath()));
+        private MediaFiles scanMediaFiles() {
+            // The media gallery only covers the first generation. Everything else simply has no extra images.
+            Path expandedImagesPath = getMediaFolderPath();
+            if (expandedImagesPath == null || !Files.exists(expandedImagesPath)) {
+                return MediaFiles.EMPTY;
             }
 
             // iterate all files
             try (Stream<Path> stream = Files.walk(expandedImagesPath))
             {
                 // Store images for upload
-                stream
+                List<Path> mediaImages = stream
                     .filter(path -> path.toString().contains("--compressed"))
-                    .forEach(mediaImages::add);
+                    .toList();
 
-                // However, these images are also on the "cdn" (e.g: Github), so we can directly reference them if desired.
-                mediaImages
-                    .stream()
-                    .map(path -> path.toString().replace(LOCAL_MEDIA_IMAGES_FOLDER, HOSTED_MEDIA_IMAGES_FOLDER))
-                    .forEach(mediaImagesUrls::add);
+                return createMediaFiles(mediaImages);
             }
             catch (IOException e)
             {
-                throw new RuntimeException(e);
+                throw new UncheckedIOException(e);
             }
+        }
+
+        private MediaFiles createMediaFiles(List<Path> mediaImages) {
+            // However, these images are also on the "cdn" (e.g: Github), so we can directly reference them if desired.
+            List<String> mediaImagesUrls = mediaImages
+                .stream()
+                .map(path -> path.toString().replace(LOCAL_MEDIA_IMAGES_FOLDER, HOSTED_MEDIA_IMAGES_FOLDER))
+                .toList();
 
-            for (int i = 0; i < 4; i++) {
-                String key = getId() + "_part" + i;
-                emojiThumbnailIds.add("<:a:" + emojiData.getString(key) + ">");
+            return new MediaFiles(List.copyOf(mediaImages), mediaImagesUrls);
+        }
+
+        private Path getMediaFolderPath() {
+            try {
+                return Paths.get(LOCAL_MEDIA_IMAGES_FOLDER, getMediaFolderName());
+            }
+            catch (InvalidPathException e) {
+                // Names such as Flabébé can't be encoded on every filesystem, and have no folder anyway
+                return null;
             }
         }
 
-        public String getThumbnailUrl() {
-            return this.data.getString("thumbnail");
+        /**
+         * Whether the media gallery has a folder for this pokemon, regardless of the images in it.
+         */
+        boolean hasMediaFolder() {
+            Path folder = getMediaFolderPath();
+            return folder != null && Files.isDirectory(folder);
         }
 
-        public List<String> getThumbnailEmojiMentions() {
-            return emojiThumbnailIds;
+        public String getThumbnailUrl() {
+            return table.getThumbnailUrl(id);
         }
 
         public String getHighResUrl() {
-            return this.data.getString("hires");
+            return table.getHighResUrl(id);
+        }
+
+        public int getMediaImageCount() {
+            return getMediaFiles().paths.size();
+        }
+
+        public boolean hasMediaImages() {
+            return !getMediaFiles().paths.isEmpty();
         }
 
         /**
-         * Selects a random set of media images for this pokemon.
-         *
-         * @param imageCount
+         * Selects random media images for this pokemon. Fewer images are returned if the pokemon has fewer.
+         */
+        public List<Path> getRandomMediaImages(int imageCount) {
+            return RandomSampler.sample(getMediaFiles().paths, imageCount);
+        }
+
+        public List<String> getRandomMediaImageUrls(int imageCount) {
+            return RandomSampler.sample(getMediaFiles().urls, imageCount);
+        }
+
+        /**
+         * Pages through the media images of this pokemon in an order that is fixed per pokemon, so paging forward
+         * shows every image once before repeating and the same page always shows the same images.
          *
-         * @return
+         * @param page
+         *        The page to show, wraps around after {@link #getMediaPageCount(int)} pages
          */
-        public Set<Path> getRandomMediaImages(int imageCount) {
-            return selectRandomItems(mediaImages, imageCount);
+        public List<Path> getMediaImagePage(int imageCount, int page) {
+            return RandomSampler.page(getMediaFiles().paths, imageCount, page, id);
+        }
+
+        public List<String> getMediaImageUrlPage(int imageCount, int page) {
+            return RandomSampler.page(getMediaFiles().urls, imageCount, page, id);
+        }
+
+        public int getMediaPageCount(int imageCount) {
+            return RandomSampler.getPageCount(getMediaImageCount(), imageCount);
+        }
+    }
+
+    private static class MediaFiles {
+        private static final MediaFiles EMPTY = new MediaFiles(List.of(), List.of());
+
+        private final List<Path> paths;
+        private final List<String> urls;
+
+        private MediaFiles(List<Path> paths, List<String> urls) {
+            this.paths = paths;
+            this.urls = urls;
+        }
+    }
+
+    public enum Language {
+        ENGLISH("english"),
+        JAPANESE("japanese", DiscordLocale.JAPANESE),
+        CHINESE("chinese", DiscordLocale.CHINESE_CHINA, DiscordLocale.CHINESE_TAIWAN),
+        FRENCH("french", DiscordLocale.FRENCH);
+
+        private final String key;
+        private final List<DiscordLocale> locales;
+
+        Language(String key, DiscordLocale... locales) {
+            this.key = key;
+            this.locales = List.of(locales);
+        }
+
+        public String getKey() {
+            return key;
         }
 
-        public Set<String> getRandomMediaImageUrls(int imageCount) {
-            return selectRandomItems(mediaImagesUrls, imageCount);
+        /**
+         * @return The Discord locales shown in this language, none for english which is the fallback
+         */
+        public List<DiscordLocale> getLocales() {
+            return locales;
         }
 
-        private <T> Set<T> selectRandomItems(List<T> source, int itemCount) {
-            Set<T> selectedItems = new HashSet<>(itemCount);
-            while (selectedItems.size() < itemCount) {
-                selectedItems.add(source.get(rand.nextInt(source.size())));
+        /**
+         * @return The language to show users with the provided locale, english if the names aren't available in it
+         */
+        public static Language fromLocale(DiscordLocale locale) {
+            for (Language language : values()) {
+                if (locale != null && language.locales.contains(locale)) {
+                    return language;
+                }
             }
 
-            return selectedItems;
+            return ENGLISH;
+        }
+    }
+
+    public enum Stat {
+        HP("HP"),
+        ATTACK("Attack"),
+        DEFENSE("Defense"),
+        SP_ATTACK("Sp. Attack"),
+        SP_DEFENSE("Sp. Defense"),
+        SPEED("Speed");
+
+        private final String key;
+
+        Stat(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
         }
     }
 
@@ -238,26 +432,47 @@ public class PokemonData
     }
 
     public static class Stats {
-        private final DataObject data;
+        private final PokemonTable table;
+        private final int id;
+
+        public Stats(PokemonTable table, int id) {
+            this.table = table;
+            this.id = id;
+        }
+
+        /**
+         * @return Whether base stats are recorded for this pokemon. Unknown stats are reported as {@code -1}.
+         */
+        public boolean isKnown() {
+            return table.getStat(id, Stat.HP) >= 0;
+        }
 
-        public Stats(DataObject data) {
-            this.data = data;
+        public int get(Stat stat) {
+            return table.getStat(id, stat);
         }
 
         public int getHP() {
-            return this.data.getInt("HP");
+            return get(Stat.HP);
         }
 
         public int getAttack() {
-            return this.data.getInt("Attack");
+            return get(Stat.ATTACK);
         }
 
         public int getDefense() {
-            return this.data.getInt("Defense");
+            return get(Stat.DEFENSE);
+        }
+
+        public int getSpAttack() {
+            return get(Stat.SP_ATTACK);
+        }
+
+        public int getSpDefense() {
+            return get(Stat.SP_DEFENSE);
         }
 
         public int getSpeed() {
-            return this.data.getInt("Speed");
+            return get(Stat.SPEED);
         }
     }
 }
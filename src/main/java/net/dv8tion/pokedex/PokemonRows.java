@@ -0,0 +1,90 @@
+package net.dv8tion.pokedex;
+
+/**
+ * The text of every pokemon's row in pokedex pages, search results and evolutions, built once per load.
+ *
+ * <p>A row shows the pokemon's emoji thumbnail, split in four parts over two lines, next to its name,
+ * species and types:
+ * <pre>
+ * **[0][1]   Name**
+ * [2][3]   Species - Type, Type
+ * </pre>
+ * Rows are stored in flat arrays indexed by language and pokemon id, so rendering one doesn't format or allocate
+ * anything. Names missing in a language are shown in english.
+ */
+public class PokemonRows
+{
+    // Indexed by language ordinal, then pokemon id
+    private final String[][] rows;
+    private final String[][] compactRows;
+    // The row followed by the criteria to evolve into the pokemon, null for base forms
+    private final String[][] evolutionRows;
+    private final String[][] compactEvolutionRows;
+
+    public PokemonRows(PokemonTable table, EvolutionGraph evolutions) {
+        int languages = PokemonData.Language.values().length;
+        int slots = table.getMaxId() + 1;
+        this.rows = new String[languages][slots];
+        this.compactRows = new String[languages][slots];
+        this.evolutionRows = new String[languages][slots];
+        this.compactEvolutionRows = new String[languages][slots];
+
+        StringBuilder row = new StringBuilder(256);
+        for (int id = 1; id < slots; id++) {
+            if (!table.contains(id)) {
+                continue;
+            }
+
+            String speciesAndTypes = table.getSpecies(id) + " - " + String.join(", ", table.getTypes(id));
+            String criteria = evolutions.getParentId(id) == 0 ? null : evolutions.getParentCriteria(id);
+            for (PokemonData.Language language : PokemonData.Language.values()) {
+                int l = language.ordinal();
+                String name = getName(table, id, language);
+
+                row.setLength(0);
+                row.append("**").append(getEmojiMention(table, id, 0)).append(getEmojiMention(table, id, 1)).append("   ").append(name).append("**\n")
+                    .append(getEmojiMention(table, id, 2)).append(getEmojiMention(table, id, 3)).append("   ").append(speciesAndTypes);
+                rows[l][id] = row.toString();
+
+                // The emoji mentions make up most of a row, compact rows go without the thumbnail
+                compactRows[l][id] = "**" + name + "**   " + speciesAndTypes;
+
+                if (criteria != null) {
+                    evolutionRows[l][id] = rows[l][id] + "\n-# Criteria: " + criteria;
+                    compactEvolutionRows[l][id] = compactRows[l][id] + "\n-# Criteria: " + criteria;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The name of the pokemon in the language, or its english name if the data has none
+     */
+    static String getName(PokemonTable table, int id, PokemonData.Language language) {
+        String name = table.getName(id, language);
+        return name == null || name.isBlank() ? table.getName(id, PokemonData.Language.ENGLISH) : name;
+    }
+
+    private static String getEmojiMention(PokemonTable table, int id, int part) {
+        // A thumbnail with missing parts renders as a broken image, show none instead (see PokedexIntegrityCheck)
+        if (table.getEmojiPartCount(id) != PokemonTable.EMOJI_PARTS) {
+            return "";
+        }
+
+        return "<:a:" + table.getEmojiId(id, part) + ">";
+    }
+
+    public String getRow(int pokemonId, ResponseBudget.Mode mode, PokemonData.Language language) {
+        String[][] variants = mode == ResponseBudget.Mode.COMPACT ? compactRows : rows;
+        return variants[language.ordinal()][pokemonId];
+    }
+
+    /**
+     * @return The row of the pokemon followed by how to evolve into it, or just the row if it is a base form
+     */
+    public String getEvolutionRow(int pokemonId, ResponseBudget.Mode mode, PokemonData.Language language) {
+        String[][] variants = mode == ResponseBudget.Mode.COMPACT ? compactEvolutionRows : evolutionRows;
+        String row = variants[language.ordinal()][pokemonId];
+        return row != null ? row : getRow(pokemonId, mode, language);
+    }
+}
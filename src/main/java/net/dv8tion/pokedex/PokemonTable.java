@@ -0,0 +1,457 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Dense, id-indexed columnar storage for the parsed pokedex.
+ *
+ * <p>Each field of a pokemon lives in its own array, indexed directly by pokemon id (slot 0 is unused).
+ * Repeated strings (species, types, evolution criteria) are de-duplicated while loading, so the
+ * {@link PokemonData} instances handed out by {@link Pokedex} are nothing more than a table reference and an id.
+ */
+public class PokemonTable
+{
+    public static final int EMOJI_PARTS = 4;
+
+    private static final int[] NO_EVOLUTIONS = new int[0];
+    private static final String[] NO_CRITERIA = new String[0];
+
+    private final int maxId;
+    // Only lowered by exclude(), while loading
+    private int size;
+
+    private final boolean[] present;
+    private final byte[] generations;
+    private final String[][] names;
+    private final String[] species;
+    private final String[] descriptions;
+    private final String[] thumbnailUrls;
+    private final String[] highResUrls;
+
+    // Shared, immutable type lists. Pokemon point at a combination instead of holding their own list.
+    private final List<List<String>> typeCombinations = new ArrayList<>();
+    private final short[] typeCombination;
+
+    // HP, Attack, Defense, Sp. Attack, Sp. Defense, Speed for each pokemon, in that order. -1 when unknown.
+    private final short[] stats;
+
+    private final int[] prevEvolutionIds;
+    private final String[] prevEvolutionCriteria;
+    private final int[][] nextEvolutionIds;
+    private final String[][] nextEvolutionCriteria;
+
+    private final long[] emojiIds;
+
+    // Pokemon id -> why its entry couldn't be read. Only filled when parsing the json sources.
+    private final Map<Integer, String> rejectedEntries = new TreeMap<>();
+    // Index in the json array -> entries without a usable id, which can't be told apart by id
+    private final Map<Integer, String> unidentifiedEntries = new TreeMap<>();
+
+    /**
+     * Parses the json sources. Entries with missing or malformed fields are left out and listed by
+     * {@link #getRejectedEntries()} (or {@link #getUnidentifiedEntries()} without an id), instead of failing the
+     * whole load.
+     */
+    public PokemonTable(DataArray pokemonData, DataObject emojiData) {
+        int[] entryIds = new int[pokemonData.length()];
+        int highestId = 0;
+        for (int i = 0; i < entryIds.length; i++) {
+            entryIds[i] = readId(pokemonData, i);
+            highestId = Math.max(highestId, entryIds[i]);
+        }
+
+        this.maxId = highestId;
+        int slots = maxId + 1;
+
+        this.present = new boolean[slots];
+        this.generations = new byte[slots];
+        this.names = new String[PokemonData.Language.values().length][slots];
+        this.species = new String[slots];
+        this.descriptions = new String[slots];
+        this.thumbnailUrls = new String[slots];
+        this.highResUrls = new String[slots];
+        this.typeCombination = new short[slots];
+        this.stats = new short[slots * PokemonData.Stat.values().length];
+        this.prevEvolutionIds = new int[slots];
+        this.prevEvolutionCriteria = new String[slots];
+        this.nextEvolutionIds = new int[slots][];
+        this.nextEvolutionCriteria = new String[slots][];
+        this.emojiIds = new long[slots * EMOJI_PARTS];
+
+        Map<String, String> stringPool = new HashMap<>();
+        Map<List<String>, Short> typeCombinationIndex = new HashMap<>();
+
+        int count = 0;
+        for (int i = 0; i < entryIds.length; i++) {
+            int id = entryIds[i];
+            if (id <= 0) {
+                unidentifiedEntries.put(i, "it has no valid id");
+                continue;
+            }
+
+            try {
+                parse(id, pokemonData.getObject(i), emojiData, stringPool, typeCombinationIndex);
+            }
+            catch (RuntimeException e) {
+                // e.g. a missing field, the slots of the pokemon are never read without it being present
+                rejectedEntries.put(id, String.valueOf(e.getMessage()));
+                continue;
+            }
+
+            present[id] = true;
+            count++;
+        }
+
+        this.size = count;
+    }
+
+    /**
+     * @return The id of the entry at the index, or -1 if the entry isn't an object or its id is missing or malformed
+     */
+    private static int readId(DataArray pokemonData, int index) {
+        try {
+            return pokemonData.getObject(index).getInt("id", -1);
+        }
+        catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads a table previously written with {@link #write(DataOutputStream)}.
+     *
+     * <p>All strings are stored once in a leading string table and referenced by index, so strings that were
+     * shared when the table was written are shared again after reading it.
+     */
+    public PokemonTable(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        this.maxId = buffer.getInt();
+        this.size = buffer.getInt();
+        int slots = maxId + 1;
+
+        this.present = new boolean[slots];
+        this.generations = new byte[slots];
+        for (int id = 0; id < slots; id++) {
+            present[id] = buffer.get() != 0;
+            generations[id] = buffer.get();
+        }
+
+        this.names = new String[PokemonData.Language.values().length][];
+        for (int language = 0; language < names.length; language++) {
+            names[language] = readStrings(buffer, strings, slots);
+        }
+        this.species = readStrings(buffer, strings, slots);
+        this.descriptions = readStrings(buffer, strings, slots);
+        this.thumbnailUrls = readStrings(buffer, strings, slots);
+        this.highResUrls = readStrings(buffer, strings, slots);
+
+        int combinationCount = buffer.getInt();
+        for (int i = 0; i < combinationCount; i++) {
+            typeCombinations.add(List.of(readStrings(buffer, strings, buffer.getInt())));
+        }
+        this.typeCombination = new short[slots];
+        buffer.asShortBuffer().get(typeCombination);
+        buffer.position(buffer.position() + slots * Short.BYTES);
+
+        this.stats = new short[slots * PokemonData.Stat.values().length];
+        buffer.asShortBuffer().get(stats);
+        buffer.position(buffer.position() + stats.length * Short.BYTES);
+
+        this.prevEvolutionIds = new int[slots];
+        buffer.asIntBuffer().get(prevEvolutionIds);
+        buffer.position(buffer.position() + slots * Integer.BYTES);
+        this.prevEvolutionCriteria = readStrings(buffer, strings, slots);
+
+        this.nextEvolutionIds = new int[slots][];
+        this.nextEvolutionCriteria = new String[slots][];
+        for (int id = 0; id < slots; id++) {
+            int count = buffer.getInt();
+            nextEvolutionIds[id] = count == 0 ? NO_EVOLUTIONS : new int[count];
+            for (int n = 0; n < count; n++) {
+                nextEvolutionIds[id][n] = buffer.getInt();
+            }
+            nextEvolutionCriteria[id] = count == 0 ? NO_CRITERIA : readStrings(buffer, strings, count);
+        }
+
+        this.emojiIds = new long[slots * EMOJI_PARTS];
+        buffer.asLongBuffer().get(emojiIds);
+        buffer.position(buffer.position() + emojiIds.length * Long.BYTES);
+    }
+
+    /**
+     * Writes this table in the binary format understood by {@link #PokemonTable(ByteBuffer)}.
+     */
+    public void write(DataOutputStream out) throws IOException {
+        Map<String, Integer> stringIndex = new LinkedHashMap<>();
+        ByteArrayOutputStream columnBytes = new ByteArrayOutputStream();
+        DataOutputStream columns = new DataOutputStream(columnBytes);
+        int slots = maxId + 1;
+
+        columns.writeInt(maxId);
+        columns.writeInt(size);
+        for (int id = 0; id < slots; id++) {
+            columns.writeByte(present[id] ? 1 : 0);
+            columns.writeByte(generations[id]);
+        }
+
+        for (String[] languageNames : names) {
+            writeStrings(columns, stringIndex, languageNames);
+        }
+        writeStrings(columns, stringIndex, species);
+        writeStrings(columns, stringIndex, descriptions);
+        writeStrings(columns, stringIndex, thumbnailUrls);
+        writeStrings(columns, stringIndex, highResUrls);
+
+        columns.writeInt(typeCombinations.size());
+        for (List<String> types : typeCombinations) {
+            columns.writeInt(types.size());
+            writeStrings(columns, stringIndex, types.toArray(new String[0]));
+        }
+        for (short combination : typeCombination) {
+            columns.writeShort(combination);
+        }
+
+        for (short stat : stats) {
+            columns.writeShort(stat);
+        }
+
+        for (int prevEvolutionId : prevEvolutionIds) {
+            columns.writeInt(prevEvolutionId);
+        }
+        writeStrings(columns, stringIndex, prevEvolutionCriteria);
+
+        for (int id = 0; id < slots; id++) {
+            // Slots of missing pokemon were never filled in while parsing
+            int[] evolutionIds = nextEvolutionIds[id] == null ? NO_EVOLUTIONS : nextEvolutionIds[id];
+            columns.writeInt(evolutionIds.length);
+            for (int evolutionId : evolutionIds) {
+                columns.writeInt(evolutionId);
+            }
+            if (evolutionIds.length > 0) {
+                writeStrings(columns, stringIndex, nextEvolutionCriteria[id]);
+            }
+        }
+
+        for (long emojiId : emojiIds) {
+            columns.writeLong(emojiId);
+        }
+        columns.flush();
+
+        out.writeInt(stringIndex.size());
+        for (String value : stringIndex.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        columnBytes.writeTo(out);
+    }
+
+    private void parse(int id, DataObject data, DataObject emojiData, Map<String, String> stringPool, Map<List<String>, Short> typeCombinationIndex) {
+        Generation generation = Generation.fromPokemonId(id);
+        generations[id] = (byte) (generation == null ? 0 : generation.getNumber());
+
+        DataObject nameData = data.getObject("name");
+        for (PokemonData.Language language : PokemonData.Language.values()) {
+            names[language.ordinal()][id] = nameData.getString(language.getKey());
+        }
+
+        species[id] = pool(stringPool, data.getString("species"));
+        descriptions[id] = data.getString("description");
+
+        DataObject imageData = data.getObject("image");
+        thumbnailUrls[id] = imageData.getString("thumbnail");
+        highResUrls[id] = imageData.getString("hires", null);
+
+        List<String> types = data.getArray("type")
+            .stream(DataArray::getString)
+            .map(type -> pool(stringPool, type))
+            .toList();
+        typeCombination[id] = typeCombinationIndex.computeIfAbsent(types, key -> {
+            typeCombinations.add(key);
+            return (short) (typeCombinations.size() - 1);
+        });
+
+        // Not every pokemon in the data set has base stats recorded
+        DataObject baseData = data.optObject("base").orElse(null);
+        for (PokemonData.Stat stat : PokemonData.Stat.values()) {
+            stats[statIndex(id, stat)] = (short) (baseData == null ? -1 : baseData.getInt(stat.getKey(), -1));
+        }
+
+        DataObject evolutionData = data.getObject("evolution");
+        DataArray prev = evolutionData.optArray("prev").orElse(null);
+        if (prev != null && !prev.isEmpty()) {
+            prevEvolutionIds[id] = prev.getInt(0);
+            prevEvolutionCriteria[id] = pool(stringPool, prev.getString(1));
+        }
+
+        DataArray next = evolutionData.optArray("next").orElse(null);
+        if (next != null && !next.isEmpty()) {
+            nextEvolutionIds[id] = new int[next.length()];
+            nextEvolutionCriteria[id] = new String[next.length()];
+            for (int n = 0; n < next.length(); n++) {
+                DataArray evolution = next.getArray(n);
+                nextEvolutionIds[id][n] = evolution.getInt(0);
+                nextEvolutionCriteria[id][n] = pool(stringPool, evolution.getString(1));
+            }
+        }
+        else {
+            nextEvolutionIds[id] = NO_EVOLUTIONS;
+            nextEvolutionCriteria[id] = NO_CRITERIA;
+        }
+
+        // Emojis have only been uploaded for part of the pokedex. 0 marks a missing emoji.
+        for (int part = 0; part < EMOJI_PARTS; part++) {
+            String key = id + "_part" + part;
+            long emojiId = emojiData.hasKey(key) ? emojiData.getLong(key) : 0L;
+            emojiIds[id * EMOJI_PARTS + part] = Math.max(emojiId, 0L);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer buffer, String[] strings, int count) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            int index = buffer.getInt();
+            values[i] = index == -1 ? null : strings[index];
+        }
+
+        return values;
+    }
+
+    private static void writeStrings(DataOutputStream out, Map<String, Integer> stringIndex, String[] values) throws IOException {
+        for (String value : values) {
+            out.writeInt(value == null ? -1 : stringIndex.computeIfAbsent(value, key -> stringIndex.size()));
+        }
+    }
+
+    private static String pool(Map<String, String> stringPool, String value) {
+        return stringPool.computeIfAbsent(value, key -> key);
+    }
+
+    private static int statIndex(int id, PokemonData.Stat stat) {
+        return id * PokemonData.Stat.values().length + stat.ordinal();
+    }
+
+    /**
+     * Leaves a pokemon out of the table, as if it wasn't part of the sources. Only called while loading, before
+     * anything else reads the table.
+     */
+    void exclude(int id) {
+        if (contains(id)) {
+            present[id] = false;
+            size--;
+        }
+    }
+
+    /**
+     * @return Pokemon id -> why its entry couldn't be parsed, those pokemon aren't part of the table
+     */
+    public Map<Integer, String> getRejectedEntries() {
+        return Collections.unmodifiableMap(rejectedEntries);
+    }
+
+    /**
+     * @return Index in the pokemon json array -> why the entry has no usable id, those entries aren't part of the table
+     */
+    public Map<Integer, String> getUnidentifiedEntries() {
+        return Collections.unmodifiableMap(unidentifiedEntries);
+    }
+
+    public int getMaxId() {
+        return maxId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return id > 0 && id <= maxId && present[id];
+    }
+
+    public int getGeneration(int id) {
+        return generations[id];
+    }
+
+    public String getName(int id, PokemonData.Language language) {
+        return names[language.ordinal()][id];
+    }
+
+    public String getSpecies(int id) {
+        return species[id];
+    }
+
+    public String getDescription(int id) {
+        return descriptions[id];
+    }
+
+    public String getThumbnailUrl(int id) {
+        return thumbnailUrls[id];
+    }
+
+    public String getHighResUrl(int id) {
+        return highResUrls[id];
+    }
+
+    public List<String> getTypes(int id) {
+        return typeCombinations.get(typeCombination[id]);
+    }
+
+    public int getStat(int id, PokemonData.Stat stat) {
+        return stats[statIndex(id, stat)];
+    }
+
+    public int getPrevEvolutionId(int id) {
+        return prevEvolutionIds[id];
+    }
+
+    public String getPrevEvolutionCriteria(int id) {
+        return prevEvolutionCriteria[id];
+    }
+
+    public int getNextEvolutionCount(int id) {
+        return nextEvolutionIds[id].length;
+    }
+
+    public int getNextEvolutionId(int id, int index) {
+        return nextEvolutionIds[id][index];
+    }
+
+    public String getNextEvolutionCriteria(int id, int index) {
+        return nextEvolutionCriteria[id][index];
+    }
+
+    /**
+     * @return The id of the emoji showing the part of the pokemon's thumbnail, or 0 if the part wasn't uploaded
+     */
+    public long getEmojiId(int id, int part) {
+        return emojiIds[id * EMOJI_PARTS + part];
+    }
+
+    /**
+     * @return How many parts of the pokemon's emoji thumbnail were uploaded
+     */
+    public int getEmojiPartCount(int id) {
+        int parts = 0;
+        for (int part = 0; part < EMOJI_PARTS; part++) {
+            if (emojiIds[id * EMOJI_PARTS + part] != 0) {
+                parts++;
+            }
+        }
+
+        return parts;
+    }
+}
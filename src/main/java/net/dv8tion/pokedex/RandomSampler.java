@@ -0,0 +1,93 @@
+package net.dv8tion.pokedex;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws distinct items from a list.
+ *
+ * <p>Items are drawn with a partial Fisher-Yates shuffle over an index array, so picking {@code k} of {@code n}
+ * items always takes {@code O(n)} steps, even when {@code k} is close to {@code n}. Unseeded draws use the
+ * generator of the calling thread, so concurrent handlers never contend on a shared {@link java.util.Random}.
+ *
+ * <p>Results are in the order the items were drawn.
+ */
+public final class RandomSampler
+{
+    // Index arrays are reused per thread, media folders hold about a hundred images at most
+    private static final ThreadLocal<int[]> INDICES = ThreadLocal.withInitial(() -> new int[128]);
+
+    private RandomSampler() {}
+
+    /**
+     * @return Up to {@code count} distinct items, drawn at random
+     */
+    public static <T> List<T> sample(List<T> source, int count) {
+        return draw(source, 0, count, ThreadLocalRandom.current());
+    }
+
+    /**
+     * @return Up to {@code count} distinct items. The same seed always draws the same items from the same list.
+     */
+    public static <T> List<T> sample(List<T> source, int count, long seed) {
+        return draw(source, 0, count, new SplittableRandom(seed));
+    }
+
+    /**
+     * Splits a shuffled copy of the list into pages. No item appears on more than one page of the same seed.
+     *
+     * @param  page
+     *         The page to return, wraps around after {@link #getPageCount(int, int)} pages
+     *
+     * @return The items on the page. The last page may hold fewer than {@code pageSize} items.
+     */
+    public static <T> List<T> page(List<T> source, int pageSize, int page, long seed) {
+        int pageCount = getPageCount(source.size(), pageSize);
+        if (pageCount == 0) {
+            return List.of();
+        }
+
+        return draw(source, Math.floorMod(page, pageCount) * pageSize, pageSize, new SplittableRandom(seed));
+    }
+
+    public static int getPageCount(int itemCount, int pageSize) {
+        return (itemCount + pageSize - 1) / pageSize;
+    }
+
+    /**
+     * Shuffles the first {@code skip + count} positions and returns the items at positions {@code skip} and after.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> draw(List<T> source, int skip, int count, RandomGenerator random) {
+        int size = source.size();
+        count = Math.max(0, Math.min(count, size - skip));
+        if (count == 0) {
+            return List.of();
+        }
+
+        int[] indices = INDICES.get();
+        if (indices.length < size) {
+            indices = new int[Math.max(size, indices.length * 2)];
+            INDICES.set(indices);
+        }
+        for (int i = 0; i < size; i++) {
+            indices[i] = i;
+        }
+
+        Object[] items = new Object[count];
+        for (int i = 0; i < skip + count; i++) {
+            int pick = i + random.nextInt(size - i);
+            int index = indices[pick];
+            indices[pick] = indices[i];
+            indices[i] = index;
+
+            if (i >= skip) {
+                items[i - skip] = source.get(index);
+            }
+        }
+
+        return (List<T>) List.of(items);
+    }
+}
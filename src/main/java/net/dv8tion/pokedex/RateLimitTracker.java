@@ -0,0 +1,122 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.requests.Response;
+import net.dv8tion.jda.api.requests.Route;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the rate limit state Discord last reported for each bucket, so requests that would only wait on
+ * an exhausted bucket can be held back (and possibly dropped) before they are queued.
+ *
+ * <p>Updated by {@link MeasuredRateLimiter} from the {@code X-RateLimit-*} headers of every response and from
+ * 429 responses. JDA's rate limiter still enforces the limits, this only lets callers see them coming.
+ *
+ * <p>Buckets are told apart by the {@code X-RateLimit-Bucket} hash of their route alone. Discord also splits them by
+ * the route's major parameters, but for interactions that is the token of a single interaction, whose bucket is
+ * gone before another request could wait on it. Without them, a route whose bucket was exhausted by one interaction
+ * holds back the requests of the others until the reset, which is the back-off callers are after.
+ * A global rate limit holds back every request until it resets.
+ */
+public class RateLimitTracker
+{
+    // Buckets whose reset passed are dropped once there are more than this many
+    private static final int PRUNE_THRESHOLD = 256;
+
+    // Route template, e.g. "interactions/{interaction_id}/{interaction_token}/callback" -> bucket hash
+    private final Map<String, String> bucketHashes = new ConcurrentHashMap<>();
+    // Bucket hash (or route template until it is known) -> last reported state
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private volatile long globalResetAtMillis;
+
+    public RateLimitTracker(BotMetrics metrics) {
+        metrics.gauge("pokedex_rate_limit_buckets", "Rate limit buckets Discord reported on recently", buckets::size);
+        metrics.gauge("pokedex_rate_limit_exhausted_buckets", "Rate limit buckets that are exhausted until their reset", this::countExhausted);
+    }
+
+    public void update(Route.CompiledRoute route, Response response) {
+        long now = System.currentTimeMillis();
+        okhttp3.Response raw = response.getRawResponse();
+        String template = route.getBaseRoute().getRoute();
+        String bucketHash = raw == null ? null : raw.header("X-RateLimit-Bucket");
+        if (bucketHash != null) {
+            bucketHashes.put(template, bucketHash);
+        }
+
+        if (response.isRateLimit()) {
+            long resetAt = now + response.getRetryAfter();
+            if (raw != null && "true".equalsIgnoreCase(raw.header("X-RateLimit-Global"))) {
+                globalResetAtMillis = resetAt;
+            }
+            else {
+                put(getKey(route), new Bucket(0, resetAt), now);
+            }
+            return;
+        }
+
+        String remaining = raw == null ? null : raw.header("X-RateLimit-Remaining");
+        String resetAfter = raw == null ? null : raw.header("X-RateLimit-Reset-After");
+        if (remaining == null || resetAfter == null) {
+            return;
+        }
+
+        try {
+            put(getKey(route), new Bucket(Integer.parseInt(remaining), now + (long) (Double.parseDouble(resetAfter) * 1000)), now);
+        }
+        catch (NumberFormatException ignored) {
+            // Keep the previous state
+        }
+    }
+
+    /**
+     * @return How long to wait until none of the routes are exhausted anymore, 0 if a request can be sent now
+     */
+    public long getDelayMillis(Route.CompiledRoute... routes) {
+        long now = System.currentTimeMillis();
+        long delay = globalResetAtMillis - now;
+        for (Route.CompiledRoute route : routes) {
+            Bucket bucket = buckets.get(getKey(route));
+            if (bucket != null && bucket.remaining == 0) {
+                delay = Math.max(delay, bucket.resetAtMillis - now);
+            }
+        }
+
+        return Math.max(delay, 0);
+    }
+
+    private String getKey(Route.CompiledRoute route) {
+        String template = route.getBaseRoute().getRoute();
+        return bucketHashes.getOrDefault(template, template);
+    }
+
+    private void put(String key, Bucket bucket, long now) {
+        buckets.put(key, bucket);
+        if (buckets.size() > PRUNE_THRESHOLD) {
+            // The bot uses a handful of routes, but the templates of routes whose hash only became known later stay behind
+            buckets.values().removeIf(existing -> existing.resetAtMillis <= now);
+        }
+    }
+
+    private int countExhausted() {
+        long now = System.currentTimeMillis();
+        int exhausted = 0;
+        for (Bucket bucket : buckets.values()) {
+            if (bucket.remaining == 0 && bucket.resetAtMillis > now) {
+                exhausted++;
+            }
+        }
+
+        return exhausted;
+    }
+
+    private static class Bucket {
+        private final int remaining;
+        private final long resetAtMillis;
+
+        private Bucket(int remaining, long resetAtMillis) {
+            this.remaining = remaining;
+            this.resetAtMillis = resetAtMillis;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package net.dv8tion.pokedex;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * Size-bounded, least-recently-used cache for rendered components.
+ *
+ * <p>JDA components are immutable, so a rendered {@code Container} or {@code Section} can be handed to any
+ * number of replies. Values are computed lazily on first access; once {@code maxSize} entries are stored,
+ * the least recently used entry is evicted.
+ *
+ * @param <V> The type of the rendered value
+ */
+public class RenderCache<V>
+{
+    private final String name;
+    private final LongFunction<V> renderer;
+    private final Map<Long, V> entries;
+
+    // Incremented by clear(), so renders that started before it don't put outdated values back
+    private long epoch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public RenderCache(String name, int maxSize, LongFunction<V> renderer) {
+        this.name = name;
+        this.renderer = renderer;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public V get(long key) {
+        V value;
+        long renderEpoch;
+        synchronized (entries) {
+            value = entries.get(key);
+            renderEpoch = epoch;
+        }
+
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+
+        // Render outside the lock. Two threads racing on the same key both render, but the result is identical.
+        misses.increment();
+        value = renderer.apply(key);
+        synchronized (entries) {
+            if (epoch == renderEpoch) {
+                entries.put(key, value);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Drops every entry, e.g. after the data it was rendered from changed.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            epoch++;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+}
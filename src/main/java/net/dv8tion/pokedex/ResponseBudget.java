@@ -0,0 +1,289 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.components.Component;
+import net.dv8tion.jda.api.components.MessageTopLevelComponent;
+import net.dv8tion.jda.api.components.actionrow.ActionRow;
+import net.dv8tion.jda.api.components.buttons.Button;
+import net.dv8tion.jda.api.components.container.Container;
+import net.dv8tion.jda.api.components.mediagallery.MediaGallery;
+import net.dv8tion.jda.api.components.mediagallery.MediaGalleryItem;
+import net.dv8tion.jda.api.components.section.Section;
+import net.dv8tion.jda.api.components.textdisplay.TextDisplay;
+import net.dv8tion.jda.api.components.thumbnail.Thumbnail;
+import net.dv8tion.jda.api.entities.emoji.Emoji;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.function.IntSupplier;
+
+/**
+ * Keeps responses within Discord's message limits and a byte budget, and records how large they are.
+ *
+ * <p>Discord rejects components v2 messages with more than {@link #MAX_COMPONENTS} components, nested ones
+ * included, or more than {@link #MAX_TEXT_LENGTH} characters across their text displays. Below those limits
+ * every byte still has to be serialized, queued and rendered by the client, so responses are rendered in
+ * {@link Mode#COMPACT} when
+ * <ul>
+ *     <li>{@code RENDER_MODE=compact} is set,</li>
+ *     <li>at least {@code compactAboveInFlight} interactions are queued or running, or</li>
+ *     <li>the full rendering of a response doesn't {@link #fits(Measurement) fit}.</li>
+ * </ul>
+ *
+ * The budget is read from {@code RESPONSE_BYTE_BUDGET} and defaults to {@link #DEFAULT_MAX_BYTES}.
+ * The sizes recorded in {@code pokedex_response_bytes} are the ones to tune it with.
+ *
+ * <p>Sizes are counted from the components' strings plus the json each component type adds around them, without
+ * serializing the message. Every response is measured, render cache hits included, so this has to stay cheap.
+ */
+public class ResponseBudget
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ResponseBudget.class);
+
+    public static final String MODE_ENVIRONMENT_VARIABLE = "RENDER_MODE";
+    public static final String BUDGET_ENVIRONMENT_VARIABLE = "RESPONSE_BYTE_BUDGET";
+
+    public static final int MAX_COMPONENTS = 40;
+    public static final int MAX_TEXT_LENGTH = 4000;
+    public static final int DEFAULT_MAX_BYTES = 6 * 1024;
+
+    // The json each component adds around its strings, which are counted on top
+    private static final int MESSAGE_JSON = "{\"content\":\"\",\"flags\":32768,\"components\":[],\"allowed_mentions\":{\"parse\":[\"users\",\"roles\",\"everyone\"],\"replied_user\":true}}".length();
+    private static final int TEXT_DISPLAY_JSON = "{\"type\":10,\"content\":\"\"}".length();
+    private static final int CONTAINER_JSON = "{\"type\":17,\"components\":[],\"spoiler\":false}".length();
+    private static final int SECTION_JSON = "{\"type\":9,\"components\":[],\"accessory\":}".length();
+    private static final int ACTION_ROW_JSON = "{\"type\":1,\"components\":[]}".length();
+    private static final int BUTTON_JSON = "{\"type\":2,\"style\":1,\"label\":\"\",\"custom_id\":\"\",\"disabled\":false}".length();
+    private static final int EMOJI_JSON = ",\"emoji\":{\"name\":\"\",\"id\":\"\"}".length();
+    private static final int THUMBNAIL_JSON = "{\"type\":11,\"media\":{\"url\":\"\"},\"description\":\"\",\"spoiler\":false}".length();
+    private static final int MEDIA_GALLERY_JSON = "{\"type\":12,\"items\":[]}".length();
+    private static final int MEDIA_GALLERY_ITEM_JSON = "{\"media\":{\"url\":\"\"},\"description\":\"\",\"spoiler\":false}".length();
+    // Separators
+    private static final int OTHER_COMPONENT_JSON = "{\"type\":14,\"divider\":true,\"spacing\":1}".length();
+
+    // Upper bounds in bytes of serialized message json
+    private static final double[] SIZE_BUCKETS = {512, 1024, 2048, 3072, 4096, 6144, 8192, 12288, 16384, 32768};
+
+    private final BotMetrics metrics;
+    // Null to choose by load
+    private final Mode forcedMode;
+    private final int maxBytes;
+    private final IntSupplier inFlight;
+    private final int compactAboveInFlight;
+
+    /**
+     * @param forcedMode
+     *        The mode to render every response in, or null to render compact only under load or when over budget
+     * @param inFlight
+     *        The number of interactions queued or being handled
+     */
+    public ResponseBudget(BotMetrics metrics, Mode forcedMode, int maxBytes, IntSupplier inFlight, int compactAboveInFlight) {
+        this.metrics = metrics;
+        this.forcedMode = forcedMode;
+        this.maxBytes = maxBytes;
+        this.inFlight = inFlight;
+        this.compactAboveInFlight = compactAboveInFlight;
+    }
+
+    public static ResponseBudget fromEnvironment(BotMetrics metrics, IntSupplier inFlight, int compactAboveInFlight) {
+        String mode = System.getenv(MODE_ENVIRONMENT_VARIABLE);
+        String budget = System.getenv(BUDGET_ENVIRONMENT_VARIABLE);
+
+        return new ResponseBudget(
+            metrics,
+            mode == null || mode.isBlank() ? null : Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)),
+            budget == null || budget.isBlank() ? DEFAULT_MAX_BYTES : Integer.parseInt(budget.trim()),
+            inFlight,
+            compactAboveInFlight
+        );
+    }
+
+    /**
+     * @return The mode to render the next response in, before knowing its size
+     */
+    public Mode selectMode() {
+        if (forcedMode != null) {
+            return forcedMode;
+        }
+
+        return inFlight.getAsInt() >= compactAboveInFlight ? Mode.COMPACT : Mode.FULL;
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Counts what Discord limits and the size of the message json, without serializing it.
+     */
+    public Measurement measure(Collection<? extends MessageTopLevelComponent> components) {
+        Measurement measurement = new Measurement();
+        measurement.bytes = MESSAGE_JSON;
+        for (MessageTopLevelComponent component : components) {
+            measurement.count(component);
+        }
+
+        return measurement;
+    }
+
+    /**
+     * @return Whether Discord would accept the response and it is within the byte budget
+     */
+    public boolean fits(Measurement measurement) {
+        return measurement.isAccepted() && measurement.bytes <= maxBytes;
+    }
+
+    /**
+     * Records the size of a response that is about to be sent.
+     *
+     * @param response
+     *        The kind of response, e.g. {@code pokemon-card}
+     */
+    public void record(String response, Mode mode, Measurement measurement) {
+        if (!measurement.isAccepted()) {
+            metrics.counter("pokedex_responses_over_limits_total", "Responses that exceed Discord's message limits", "response", response).increment();
+            LOG.warn("The {} {} response exceeds Discord's limits: {}", mode.getMetricName(), response, measurement);
+            return;
+        }
+
+        metrics.histogram("pokedex_response_bytes", "Size of the response messages' json", SIZE_BUCKETS,
+            "response", response, "mode", mode.getMetricName()).observe(measurement.bytes);
+        if (measurement.bytes > maxBytes) {
+            metrics.counter("pokedex_responses_over_budget_total", "Responses sent although they exceed the byte budget", "response", response).increment();
+        }
+        LOG.debug("Sending a {} {} response: {}", mode.getMetricName(), response, measurement);
+    }
+
+    public enum Mode {
+        /** Every emoji, the full description and every gallery image */
+        FULL,
+        /** No emoji thumbnails in rows, a shortened description and fewer gallery images */
+        COMPACT;
+
+        public String getMetricName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * What Discord counts towards its limits for one response, and its serialized size.
+     */
+    public static class Measurement {
+        private int components;
+        private int textLength;
+        private int bytes;
+
+        private Measurement() {}
+
+        private void count(Component component) {
+            components++;
+            // The comma separating it from the previous component
+            bytes++;
+            if (component instanceof TextDisplay) {
+                String content = ((TextDisplay) component).getContent();
+                textLength += content.length();
+                bytes += TEXT_DISPLAY_JSON + jsonLength(content);
+            }
+            else if (component instanceof Container) {
+                bytes += CONTAINER_JSON;
+                ((Container) component).getComponents().forEach(this::count);
+            }
+            else if (component instanceof Section) {
+                Section section = (Section) component;
+                bytes += SECTION_JSON;
+                section.getContentComponents().forEach(this::count);
+                count(section.getAccessory());
+            }
+            else if (component instanceof ActionRow) {
+                bytes += ACTION_ROW_JSON;
+                ((ActionRow) component).getComponents().forEach(this::count);
+            }
+            else if (component instanceof Button) {
+                Button button = (Button) component;
+                // Link buttons have a url in place of the custom id
+                bytes += BUTTON_JSON + jsonLength(button.getLabel()) + jsonLength(button.getCustomId()) + jsonLength(button.getUrl());
+                Emoji emoji = button.getEmoji();
+                if (emoji != null) {
+                    bytes += EMOJI_JSON + jsonLength(emoji.getFormatted());
+                }
+            }
+            else if (component instanceof Thumbnail) {
+                Thumbnail thumbnail = (Thumbnail) component;
+                bytes += THUMBNAIL_JSON + jsonLength(thumbnail.getUrl()) + jsonLength(thumbnail.getDescription());
+            }
+            else if (component instanceof MediaGallery) {
+                bytes += MEDIA_GALLERY_JSON;
+                for (MediaGalleryItem item : ((MediaGallery) component).getItems()) {
+                    bytes += 1 + MEDIA_GALLERY_ITEM_JSON + jsonLength(item.getUrl()) + jsonLength(item.getDescription());
+                }
+            }
+            else {
+                bytes += OTHER_COMPONENT_JSON;
+            }
+        }
+
+        /**
+         * @return The UTF-8 length of the string in json, with its escapes
+         */
+        private static int jsonLength(String value) {
+            if (value == null) {
+                return 0;
+            }
+
+            int length = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\' || c == '\n' || c == '\r' || c == '\t') {
+                    length += 2;
+                }
+                else if (c < 0x20) {
+                    // Other control characters as unicode escapes
+                    length += 6;
+                }
+                else if (c < 0x80) {
+                    length++;
+                }
+                else if (c < 0x800) {
+                    length += 2;
+                }
+                else if (Character.isHighSurrogate(c)) {
+                    // The pair is a 4 byte code point, its low surrogate adds nothing
+                    length += 4;
+                }
+                else if (!Character.isLowSurrogate(c)) {
+                    length += 3;
+                }
+            }
+
+            return length;
+        }
+
+        public int getComponents() {
+            return components;
+        }
+
+        public int getTextLength() {
+            return textLength;
+        }
+
+        /**
+         * @return Size of the message json as counted from its components, without any attached files
+         */
+        public int getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return Whether the response is within Discord's component and text limits
+         */
+        public boolean isAccepted() {
+            return components <= MAX_COMPONENTS && textLength <= MAX_TEXT_LENGTH;
+        }
+
+        @Override
+        public String toString() {
+            return bytes + " bytes, " + components + " components, " + textLength + " characters of text";
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package net.dv8tion.pokedex;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers what each pokedex message shows and where its "Back" button leads, so navigation state doesn't
+ * have to fit into the 100 characters of a custom id.
+ *
+ * <p>Views are stored as packed {@link ComponentId}s: a pokedex page, a page of search results with its query,
+ * or a card with the gallery page it shows. Every session holds the current view and a stack of the
+ * {@link #BACK_STACK_DEPTH} views before it, so returning from a card leads back to the search results it was
+ * opened from, and returning to a card shows the images it showed before.
+ *
+ * <p>Sessions live in a fixed-size hash table of primitive longs, allocated once, so memory stays flat no
+ * matter how many messages are browsed. A lookup probes up to {@link #MAX_PROBES} slots. When all of them are
+ * taken, the session that expires first is evicted. A session expires once it wasn't used for the ttl.
+ * Buttons still carry enough in their ids to work without their session.
+ */
+public class SessionStore
+{
+    public static final int BACK_STACK_DEPTH = 6;
+    private static final int MAX_PROBES = 8;
+
+    // Slot layout, in longs. A key of 0 marks an empty slot, snowflakes are never 0.
+    private static final int KEY = 0;
+    private static final int EXPIRES_AT = 1;
+    private static final int CURRENT = 2;
+    private static final int DEPTH = 3;
+    private static final int BACK_STACK = 4;
+    private static final int SLOT_SIZE = BACK_STACK + BACK_STACK_DEPTH;
+
+    private final long[] slots;
+    private final int mask;
+    private final long ttlMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity
+     *        The maximum number of sessions, rounded up to a power of two
+     */
+    public SessionStore(int capacity, long ttlMillis) {
+        int slotCount = Math.max(MAX_PROBES, Integer.highestOneBit(capacity - 1) << 1);
+        this.slots = new long[slotCount * SLOT_SIZE];
+        this.mask = slotCount - 1;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Starts a new session, replacing any previous one with the same key.
+     *
+     * @param key
+     *        The id of the interaction that created the message
+     */
+    public synchronized void start(long key, long view) {
+        int slot = claim(key, System.currentTimeMillis());
+        slots[slot + CURRENT] = view;
+        slots[slot + DEPTH] = 0;
+    }
+
+    /**
+     * Shows a new view in the session, starting the session if it doesn't exist (anymore).
+     *
+     * @param push
+     *        Whether "Back" should lead to the current view, e.g. when opening a card from a page. Otherwise the
+     *        current view is replaced, like when paging through results.
+     */
+    public synchronized void navigate(long key, long view, boolean push) {
+        long now = System.currentTimeMillis();
+        int slot = find(key, now);
+        if (slot == -1) {
+            misses.increment();
+            start(key, view);
+            return;
+        }
+
+        hits.increment();
+        slots[slot + EXPIRES_AT] = now + ttlMillis;
+        long current = slots[slot + CURRENT];
+        if (push && current != ComponentId.INVALID && current != view) {
+            int depth = (int) slots[slot + DEPTH];
+            if (depth == BACK_STACK_DEPTH) {
+                // Forget the oldest view
+                System.arraycopy(slots, slot + BACK_STACK + 1, slots, slot + BACK_STACK, BACK_STACK_DEPTH - 1);
+                depth--;
+            }
+            slots[slot + BACK_STACK + depth] = current;
+            slots[slot + DEPTH] = depth + 1;
+        }
+        slots[slot + CURRENT] = view;
+    }
+
+    /**
+     * @return The view of the session, or {@link ComponentId#INVALID} if there is no session
+     */
+    public synchronized long getCurrent(long key) {
+        int slot = find(key, System.currentTimeMillis());
+        return slot == -1 ? ComponentId.INVALID : slots[slot + CURRENT];
+    }
+
+    /**
+     * @return The view "Back" leads to, or {@link ComponentId#INVALID} if there is none
+     */
+    public synchronized long peekBack(long key) {
+        int slot = find(key, System.currentTimeMillis());
+        if (slot == -1 || slots[slot + DEPTH] == 0) {
+            return ComponentId.INVALID;
+        }
+
+        return slots[slot + BACK_STACK + (int) slots[slot + DEPTH] - 1];
+    }
+
+    /**
+     * Returns to the previous view, which becomes the current one.
+     *
+     * @return The previous view, or {@link ComponentId#INVALID} if there is none
+     */
+    public synchronized long back(long key) {
+        long now = System.currentTimeMillis();
+        int slot = find(key, now);
+        if (slot == -1 || slots[slot + DEPTH] == 0) {
+            misses.increment();
+            return ComponentId.INVALID;
+        }
+
+        hits.increment();
+        int depth = (int) slots[slot + DEPTH] - 1;
+        long view = slots[slot + BACK_STACK + depth];
+        slots[slot + DEPTH] = depth;
+        slots[slot + CURRENT] = view;
+        slots[slot + EXPIRES_AT] = now + ttlMillis;
+        return view;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Sessions dropped before they expired, to make room for new ones
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getCapacity() {
+        return slots.length / SLOT_SIZE;
+    }
+
+    /**
+     * Counts the sessions that haven't expired. Scans the whole table, only meant for metrics.
+     */
+    public synchronized int size() {
+        long now = System.currentTimeMillis();
+        int size = 0;
+        for (int slot = 0; slot < slots.length; slot += SLOT_SIZE) {
+            if (slots[slot + KEY] != 0 && slots[slot + EXPIRES_AT] > now) {
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * @return The offset of the session's slot, or -1
+     */
+    private int find(long key, long now) {
+        int index = hash(key);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = ((index + probe) & mask) * SLOT_SIZE;
+            if (slots[slot + KEY] == key) {
+                return slots[slot + EXPIRES_AT] > now ? slot : -1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Takes the session's slot, or a free one, or the one of the session that expires first.
+     */
+    private int claim(long key, long now) {
+        int index = hash(key);
+        int victim = -1;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = ((index + probe) & mask) * SLOT_SIZE;
+            long slotKey = slots[slot + KEY];
+            if (slotKey == key || slotKey == 0 || slots[slot + EXPIRES_AT] <= now) {
+                victim = slot;
+                break;
+            }
+            if (victim == -1 || slots[slot + EXPIRES_AT] < slots[victim + EXPIRES_AT]) {
+                victim = slot;
+            }
+        }
+
+        if (slots[victim + KEY] != key && slots[victim + KEY] != 0 && slots[victim + EXPIRES_AT] > now) {
+            evictions.increment();
+        }
+        slots[victim + KEY] = key;
+        slots[victim + EXPIRES_AT] = now + ttlMillis;
+        return victim;
+    }
+
+    private int hash(long key) {
+        // Snowflakes share their high bits, mix them into the low ones
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
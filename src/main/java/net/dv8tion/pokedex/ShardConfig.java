@@ -0,0 +1,109 @@
+package net.dv8tion.pokedex;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Which shards this process runs.
+ *
+ * <p>Read from the environment:
+ * <ul>
+ *     <li>{@code SHARD_TOTAL}: total number of shards across all processes. Defaults to the count Discord recommends,
+ *         in which case this process runs every shard.</li>
+ *     <li>{@code SHARD_IDS}: the shards to run in this process, as a range ({@code 0-3}) or a list ({@code 0,2,4}).
+ *         Defaults to every shard.</li>
+ *     <li>{@code METRICS_PORT}: the port of this process' {@link MetricsServer}. Defaults to {@code 9464} plus the
+ *         first of its {@code SHARD_IDS}, so processes on the same host don't compete for one port.</li>
+ * </ul>
+ */
+public class ShardConfig
+{
+    public static final String TOTAL_ENVIRONMENT_VARIABLE = "SHARD_TOTAL";
+    public static final String IDS_ENVIRONMENT_VARIABLE = "SHARD_IDS";
+
+    /** Lets Discord decide how many shards to use */
+    public static final int RECOMMENDED_TOTAL = -1;
+
+    private final int total;
+    // Null for every shard
+    private final int[] shardIds;
+
+    public ShardConfig(int total, int[] shardIds) {
+        if (shardIds != null) {
+            if (total == RECOMMENDED_TOTAL) {
+                throw new IllegalArgumentException("Selecting shards requires a fixed shard total");
+            }
+            for (int shardId : shardIds) {
+                if (shardId < 0 || shardId >= total) {
+                    throw new IllegalArgumentException("Shard id " + shardId + " is out of range for " + total + " shards");
+                }
+            }
+        }
+
+        this.total = total;
+        this.shardIds = shardIds == null ? null : shardIds.clone();
+    }
+
+    public static ShardConfig fromEnvironment() {
+        String total = System.getenv(TOTAL_ENVIRONMENT_VARIABLE);
+        String ids = System.getenv(IDS_ENVIRONMENT_VARIABLE);
+
+        return new ShardConfig(
+            total == null || total.isBlank() ? RECOMMENDED_TOTAL : Integer.parseInt(total.trim()),
+            ids == null || ids.isBlank() ? null : parseShardIds(ids)
+        );
+    }
+
+    /**
+     * @param value
+     *        A range like {@code 0-3} or a list like {@code 0,2,4}
+     */
+    static int[] parseShardIds(String value) {
+        value = value.trim().toLowerCase(Locale.ROOT);
+        int separator = value.indexOf('-');
+        if (separator != -1) {
+            int first = Integer.parseInt(value.substring(0, separator).trim());
+            int last = Integer.parseInt(value.substring(separator + 1).trim());
+            if (first > last) {
+                throw new IllegalArgumentException("Invalid shard range: " + value);
+            }
+
+            int[] shardIds = new int[last - first + 1];
+            Arrays.setAll(shardIds, i -> first + i);
+            return shardIds;
+        }
+
+        return Arrays.stream(value.split(","))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .distinct()
+            .toArray();
+    }
+
+    /**
+     * @return The total number of shards, or {@link #RECOMMENDED_TOTAL}
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return The shards this process runs, or null for every shard
+     */
+    public int[] getShardIds() {
+        return shardIds == null ? null : shardIds.clone();
+    }
+
+    /**
+     * @return Whether this process runs the provided shard
+     */
+    public boolean runs(int shardId) {
+        return shardIds == null || Arrays.stream(shardIds).anyMatch(id -> id == shardId);
+    }
+
+    @Override
+    public String toString() {
+        String shards = shardIds == null ? "all" : Arrays.toString(shardIds);
+        return "shards " + shards + " of " + (total == RECOMMENDED_TOTAL ? "recommended" : String.valueOf(total));
+    }
+}
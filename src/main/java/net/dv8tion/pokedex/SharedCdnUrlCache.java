@@ -0,0 +1,207 @@
+package net.dv8tion.pokedex;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link CdnUrlCache} stored in a memory-mapped file, shared by every process that opens the same file.
+ *
+ * <p>When several shards run on one machine, a file uploaded by one shard can be referenced by all of them,
+ * and the urls are kept once in the page cache instead of once per process. Every process must use the same keys
+ * for the same file, see {@link CdnUrlCache}. Entries are only matched by their full key, never by its hash alone.
+ *
+ * <p>The file is a fixed-size hash table with linear probing. Each slot is guarded by a sequence number:
+ * writers make it odd while they write and even again afterwards, and readers treat a slot that changed while
+ * they read it as a miss. Writers that find a slot being written skip their update.
+ * Losing an entry only costs a re-upload, so the table never blocks.
+ */
+public class SharedCdnUrlCache implements CdnUrlCache
+{
+    private static final int MAGIC = 0x43444E55; // "CDNU"
+    private static final int DEFAULT_SLOT_COUNT = 4096;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 1024;
+    private static final int MAX_PROBES = 8;
+
+    // Slot layout
+    private static final int SEQUENCE = 0;
+    private static final int KEY_HASH = 8;
+    private static final int EXPIRES_AT = 16;
+    private static final int KEY_LENGTH = 24;
+    private static final int URL_LENGTH = 26;
+    private static final int PAYLOAD = 28;
+    private static final int MAX_PAYLOAD = SLOT_SIZE - PAYLOAD;
+
+    // Atomic access to the mapped memory, these work across processes
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+
+    private SharedCdnUrlCache(MappedByteBuffer buffer, int slotCount) {
+        this.buffer = buffer;
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * Opens the cache file, creating it if it doesn't exist yet.
+     */
+    public static SharedCdnUrlCache open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            long size = HEADER_SIZE + (long) DEFAULT_SLOT_COUNT * SLOT_SIZE;
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+            buffer.order(ByteOrder.nativeOrder());
+
+            // A new file reads as zeroes. Processes racing to initialize it write the same values.
+            if (buffer.getInt(0) != MAGIC) {
+                buffer.putInt(4, DEFAULT_SLOT_COUNT);
+                buffer.putInt(0, MAGIC);
+            }
+
+            int slotCount = buffer.getInt(4);
+            if (Integer.bitCount(slotCount) != 1 || HEADER_SIZE + (long) slotCount * SLOT_SIZE > buffer.capacity()) {
+                throw new IOException("Corrupt cdn url cache " + file);
+            }
+
+            return new SharedCdnUrlCache(buffer, slotCount);
+        }
+    }
+
+    @Override
+    public String get(String key, long now) {
+        long hash = hash(key);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = slotOffset(hash, probe);
+            int sequence = (int) INT.getAcquire(buffer, slot + SEQUENCE);
+            long slotHash = buffer.getLong(slot + KEY_HASH);
+            if (slotHash == 0 && sequence == 0) {
+                // Never written, nothing further along the probe sequence either
+                return null;
+            }
+            if ((sequence & 1) != 0 || slotHash != hash) {
+                continue;
+            }
+
+            long expiresAt = buffer.getLong(slot + EXPIRES_AT);
+            int keyLength = buffer.getShort(slot + KEY_LENGTH);
+            int urlLength = buffer.getShort(slot + URL_LENGTH);
+            if (keyLength != keyBytes.length || urlLength < 0 || keyLength + urlLength > MAX_PAYLOAD || !keyEquals(slot, keyBytes)) {
+                continue;
+            }
+
+            byte[] url = new byte[urlLength];
+            buffer.get(slot + PAYLOAD + keyLength, url);
+
+            // Discard what we read if a writer touched the slot in the meantime
+            VarHandle.acquireFence();
+            if ((int) INT.getVolatile(buffer, slot + SEQUENCE) != sequence) {
+                return null;
+            }
+
+            return expiresAt > now ? new String(url, StandardCharsets.UTF_8) : null;
+        }
+
+        return null;
+    }
+
+    @Override
+    public void put(String key, String url, long expiresAt) {
+        long hash = hash(key);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] urlBytes = url.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length + urlBytes.length > MAX_PAYLOAD) {
+            return;
+        }
+
+        int slot = findSlot(hash, System.currentTimeMillis());
+        int sequence = (int) INT.getVolatile(buffer, slot + SEQUENCE);
+        if ((sequence & 1) != 0 || !INT.compareAndSet(buffer, slot + SEQUENCE, sequence, sequence + 1)) {
+            // Another writer owns the slot right now
+            return;
+        }
+
+        buffer.putLong(slot + KEY_HASH, hash);
+        buffer.putLong(slot + EXPIRES_AT, expiresAt);
+        buffer.putShort(slot + KEY_LENGTH, (short) keyBytes.length);
+        buffer.putShort(slot + URL_LENGTH, (short) urlBytes.length);
+        buffer.put(slot + PAYLOAD, keyBytes);
+        buffer.put(slot + PAYLOAD + keyBytes.length, urlBytes);
+
+        INT.setRelease(buffer, slot + SEQUENCE, sequence + 2);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < slotCount; i++) {
+            if (buffer.getLong(HEADER_SIZE + i * SLOT_SIZE + KEY_HASH) != 0) {
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * @return The slot holding the key, else the first free or expired slot, else the slot that expires first
+     */
+    private int findSlot(long hash, long now) {
+        int candidate = -1;
+        long candidateExpiry = Long.MAX_VALUE;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = slotOffset(hash, probe);
+            long slotHash = buffer.getLong(slot + KEY_HASH);
+            if (slotHash == hash || slotHash == 0) {
+                return slot;
+            }
+
+            long expiresAt = buffer.getLong(slot + EXPIRES_AT);
+            if (expiresAt <= now) {
+                return slot;
+            }
+            if (expiresAt < candidateExpiry) {
+                candidate = slot;
+                candidateExpiry = expiresAt;
+            }
+        }
+
+        return candidate;
+    }
+
+    private boolean keyEquals(int slot, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(slot + PAYLOAD + i) != key[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int slotOffset(long hash, int probe) {
+        return HEADER_SIZE + (int) ((hash + probe) & (slotCount - 1)) * SLOT_SIZE;
+    }
+
+    private static long hash(String key) {
+        // FNV-1a, identical in every process (unlike identity hashes). 0 marks empty slots.
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,379 @@
+package net.dv8tion.pokedex;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Append-only binary log of every answered interaction: what was asked, what was shown and how long it took.
+ * Aggregated offline by {@link UsageReport}.
+ *
+ * <p>Handlers never wait for the log. Records are queued and written by a background thread into the
+ * memory-mapped file, records that don't fit into the queue are dropped and counted.
+ *
+ * <p>The file starts with a {@value #HEADER_SIZE} byte header holding the offset after the last complete record,
+ * followed by fixed-size records:
+ * <pre>
+ * timestamp (8, epoch millis)  view (8, packed ComponentId)  latency (4, micros)  pokemon id (2)  command (1)  outcome (1)
+ * </pre>
+ * The view is what the response showed, or {@link ComponentId#INVALID}. Opening an existing log appends to it.
+ *
+ * <p>Only one process can write a log at a time, it is locked while open. Give each shard its own file.
+ */
+public class UsageLog
+{
+    private static final Logger LOG = LoggerFactory.getLogger(UsageLog.class);
+
+    public static final String FILE_ENVIRONMENT_VARIABLE = "USAGE_LOG_FILE";
+
+    private static final int MAGIC = 0x55534547; // "USEG"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 24;
+    // Header layout
+    private static final int END = 8;
+
+    // The file grows by this much whenever the mapped region is full
+    private static final long MAPPED_REGION_SIZE = RECORD_SIZE * 65536L;
+    // Logs are read in mappings of this size, a single mapping can't be larger than 2GB
+    private static final long READ_CHUNK_SIZE = RECORD_SIZE * (1L << 25);
+    private static final int QUEUE_CAPACITY = 16384;
+    private static final int MAX_BATCH = 1024;
+
+    private final FileChannel channel;
+    // Held until the process exits, released with the channel
+    private final FileLock lock;
+    private final MappedByteBuffer header;
+    private final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    // Only used by the writer thread
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long end;
+
+    private UsageLog(FileChannel channel, FileLock lock, MappedByteBuffer header, long end) {
+        this.channel = channel;
+        this.lock = lock;
+        this.header = header;
+        this.end = end;
+
+        Thread writer = new Thread(this::writeRecords, "usage-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Opens the log, creating it if it doesn't exist yet.
+     *
+     * @throws IOException
+     *         If the log can't be opened, or another process (or another log in this one) is writing to it
+     */
+    public static UsageLog open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            // Two writers would overwrite each other's records, both starting at the same end offset
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            }
+            catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("The usage log " + file + " is already in use, every process (or shard) needs its own " + FILE_ENVIRONMENT_VARIABLE);
+            }
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (header.getInt(0) == 0) {
+                header.putInt(4, FORMAT_VERSION);
+                header.putLong(END, HEADER_SIZE);
+                header.putInt(0, MAGIC);
+            }
+
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Unknown usage log format in " + file);
+            }
+
+            return new UsageLog(channel, lock, header, header.getLong(END));
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The log at {@code USAGE_LOG_FILE}, or null if it isn't set
+     */
+    public static UsageLog fromEnvironment() throws IOException {
+        String file = System.getenv(FILE_ENVIRONMENT_VARIABLE);
+        if (file == null || file.isBlank()) {
+            return null;
+        }
+
+        return open(Paths.get(file.trim()));
+    }
+
+    /**
+     * Queues a record, without waiting for space in the queue.
+     *
+     * @param view
+     *        What the response showed as packed {@link ComponentId}, or {@link ComponentId#INVALID}
+     * @param pokemonId
+     *        The pokemon the interaction was about, or 0
+     */
+    public void record(Command command, boolean success, long view, int pokemonId, long latency, TimeUnit unit) {
+        Record record = new Record(System.currentTimeMillis(), view, (int) Math.min(Integer.MAX_VALUE, unit.toMicros(latency)), pokemonId, command, success);
+        if (!queue.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * @return Records that were dropped because the writer fell behind
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private void writeRecords() {
+        List<Record> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                for (Record record : batch) {
+                    write(record);
+                }
+
+                // Readers only look at complete records
+                header.putLong(END, end);
+                written.add(batch.size());
+                batch.clear();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (IOException | RuntimeException e) {
+            LOG.error("Failed to write the usage log, no more interactions are recorded", e);
+            queue.clear();
+        }
+    }
+
+    private void write(Record record) throws IOException {
+        if (region == null || end + RECORD_SIZE > regionStart + region.capacity()) {
+            region = channel.map(FileChannel.MapMode.READ_WRITE, end, MAPPED_REGION_SIZE);
+            regionStart = end;
+        }
+
+        int offset = (int) (end - regionStart);
+        region.putLong(offset, record.timestamp);
+        region.putLong(offset + 8, record.view);
+        region.putInt(offset + 16, record.latencyMicros);
+        region.putShort(offset + 20, (short) record.pokemonId);
+        region.put(offset + 22, (byte) record.command.code);
+        region.put(offset + 23, (byte) (record.success ? 1 : 0));
+        end += RECORD_SIZE;
+    }
+
+    /**
+     * Reads the complete records of a log, see {@link UsageLog.Reader}.
+     */
+    public static Reader read(Path file) throws IOException {
+        return read(file, READ_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize
+     *        The size of each mapping, a multiple of the record size
+     */
+    static Reader read(Path file, long chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Unknown usage log format in " + file);
+            }
+
+            long end = header.getLong(END);
+            if (end < HEADER_SIZE || end > channel.size()) {
+                throw new IOException("Corrupt usage log " + file);
+            }
+
+            // The mappings stay valid after the channel is closed
+            long size = end - HEADER_SIZE;
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((size + chunkSize - 1) / chunkSize)];
+            for (int i = 0; i < chunks.length; i++) {
+                long position = HEADER_SIZE + i * chunkSize;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, end - position));
+            }
+
+            return new Reader(chunks, size / RECORD_SIZE);
+        }
+    }
+
+    /**
+     * Iterates over the records of a log, without allocating anything per record.
+     * <pre>{@code
+     * UsageLog.Reader reader = UsageLog.read(file);
+     * while (reader.next()) {
+     *     reader.getCommand() ...
+     * }
+     * }</pre>
+     */
+    public static class Reader {
+        // Every chunk holds whole records
+        private final MappedByteBuffer[] chunks;
+        private final long recordCount;
+        private int chunkIndex;
+        private MappedByteBuffer records;
+        private int offset = -RECORD_SIZE;
+
+        private Reader(MappedByteBuffer[] chunks, long recordCount) {
+            this.chunks = chunks;
+            this.recordCount = recordCount;
+            this.records = chunks.length == 0 ? null : chunks[0];
+        }
+
+        /**
+         * Moves to the next record.
+         *
+         * @return Whether there is one
+         */
+        public boolean next() {
+            if (records == null) {
+                return false;
+            }
+            if (offset + 2L * RECORD_SIZE <= records.capacity()) {
+                offset += RECORD_SIZE;
+                return true;
+            }
+            if (chunkIndex + 1 >= chunks.length) {
+                return false;
+            }
+
+            records = chunks[++chunkIndex];
+            offset = 0;
+            return true;
+        }
+
+        public long getRecordCount() {
+            return recordCount;
+        }
+
+        public long getTimestamp() {
+            return records.getLong(offset);
+        }
+
+        public long getView() {
+            return records.getLong(offset + 8);
+        }
+
+        public int getLatencyMicros() {
+            return records.getInt(offset + 16);
+        }
+
+        public int getPokemonId() {
+            return Short.toUnsignedInt(records.getShort(offset + 20));
+        }
+
+        /**
+         * @return The command, or null if it is unknown to this version
+         */
+        public Command getCommand() {
+            return Command.fromCode(records.get(offset + 22));
+        }
+
+        public boolean isSuccess() {
+            return records.get(offset + 23) == 1;
+        }
+    }
+
+    public enum Command {
+        // The codes are stored in logs. Never reuse or change them.
+        POKEDEX(1, "slash", "pokedex"),
+        LOOKUP(2, "slash", "pokedex-lookup"),
+        EVOLUTIONS(3, "slash", "pokedex-evolutions"),
+        SEARCH(4, "slash", "pokedex-search"),
+        BUTTON(5, "button", null),
+        AUTOCOMPLETE(6, "autocomplete", null),
+        OTHER(7, null, null);
+
+        private static final Command[] BY_CODE = new Command[256];
+        static {
+            for (Command command : values()) {
+                BY_CODE[command.code] = command;
+            }
+        }
+
+        private final int code;
+        private final String type;
+        private final String name;
+
+        Command(int code, String type, String name) {
+            this.code = code;
+            this.type = type;
+            this.name = name;
+        }
+
+        /**
+         * @param type
+         *        The kind of interaction, as passed to the {@link InteractionTimer}
+         * @param name
+         *        The command or button action
+         */
+        public static Command of(String type, String name) {
+            for (Command command : values()) {
+                if (type.equals(command.type) && (command.name == null || command.name.equals(name))) {
+                    return command;
+                }
+            }
+
+            return OTHER;
+        }
+
+        private static Command fromCode(int code) {
+            return BY_CODE[code & 0xFF];
+        }
+    }
+
+    private static class Record {
+        private final long timestamp;
+        private final long view;
+        private final int latencyMicros;
+        private final int pokemonId;
+        private final Command command;
+        private final boolean success;
+
+        private Record(long timestamp, long view, int latencyMicros, int pokemonId, Command command, boolean success) {
+            this.timestamp = timestamp;
+            this.view = view;
+            this.latencyMicros = latencyMicros;
+            this.pokemonId = pokemonId;
+            this.command = command;
+            this.success = success;
+        }
+    }
+}
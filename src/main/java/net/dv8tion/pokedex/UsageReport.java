@@ -0,0 +1,242 @@
+package net.dv8tion.pokedex;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Aggregates a {@link UsageLog} into the most used views and per-hour summaries.
+ *
+ * <p>The most used views are written as a tab-separated text file, which the bot reads on startup to render
+ * them into its caches before anyone asks for them:
+ * <pre>
+ * # kind	id	count
+ * view	1b2a	5312
+ * evolutions	133	804
+ * </pre>
+ * Views are encoded {@link ComponentId}s, cards without their gallery page. Evolution chains are listed by the
+ * id of the pokemon they were requested for.
+ *
+ * <p>Run {@link #main(String[])} (or the {@code usageReport} gradle task) on a copy of the log, e.g. daily.
+ */
+public class UsageReport
+{
+    private static final Logger LOG = LoggerFactory.getLogger(UsageReport.class);
+
+    public static final Path DEFAULT_FILE = Paths.get("pokemon-data/usage-top.tsv");
+    public static final int DEFAULT_TOP_COUNT = 100;
+
+    static final String HEADER = "# kind\tid\tcount";
+    static final String VIEW = "view";
+    static final String EVOLUTIONS = "evolutions";
+
+    // Packed view -> count
+    private final Map<Long, Long> views = new HashMap<>();
+    // Pokemon id -> evolution chain requests
+    private final Map<Integer, Long> evolutions = new HashMap<>();
+    // Pokemon id -> cards and lookups
+    private final Map<Integer, Long> pokemon = new HashMap<>();
+    private final Map<UsageLog.Command, Long> commands = new EnumMap<>(UsageLog.Command.class);
+    // Start of the hour in epoch millis -> summary
+    private final SortedMap<Long, HourSummary> hours = new TreeMap<>();
+
+    public static UsageReport aggregate(UsageLog.Reader reader) {
+        UsageReport report = new UsageReport();
+        while (reader.next()) {
+            report.add(reader);
+        }
+
+        return report;
+    }
+
+    private void add(UsageLog.Reader record) {
+        UsageLog.Command command = record.getCommand();
+        if (command == null) {
+            return;
+        }
+
+        commands.merge(command, 1L, Long::sum);
+        long hour = Instant.ofEpochMilli(record.getTimestamp()).truncatedTo(ChronoUnit.HOURS).toEpochMilli();
+        hours.computeIfAbsent(hour, key -> new HourSummary()).add(record.getLatencyMicros(), record.isSuccess());
+
+        if (!record.isSuccess()) {
+            return;
+        }
+
+        if (command == UsageLog.Command.EVOLUTIONS) {
+            evolutions.merge(record.getPokemonId(), 1L, Long::sum);
+            return;
+        }
+
+        long view = record.getView();
+        if (view == ComponentId.INVALID) {
+            return;
+        }
+
+        if (ComponentId.getAction(view) == ComponentId.Action.POKEMON_CARD) {
+            // Every page of a gallery shares the rendered card
+            int pokemonId = ComponentId.getPokemonId(view);
+            view = ComponentId.pack(ComponentId.Action.POKEMON_CARD, null, 0, pokemonId);
+            pokemon.merge(pokemonId, 1L, Long::sum);
+        }
+        views.merge(view, 1L, Long::sum);
+    }
+
+    /**
+     * @return The most used views and evolution chains, most used first
+     */
+    public List<Entry> getTop(int count) {
+        List<Entry> entries = new ArrayList<>(views.size() + evolutions.size());
+        views.forEach((view, uses) -> entries.add(new Entry(VIEW, ComponentId.toString(view), uses)));
+        evolutions.forEach((pokemonId, uses) -> entries.add(new Entry(EVOLUTIONS, String.valueOf(pokemonId), uses)));
+        entries.sort(Comparator.comparingLong(Entry::getCount).reversed());
+        return entries.subList(0, Math.min(count, entries.size()));
+    }
+
+    public void writeTop(Path file, int count) throws IOException {
+        // Written next to the target and moved into place, so the bot never reads a partial file
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8))
+        {
+            out.write(HEADER);
+            out.write('\n');
+            for (Entry entry : getTop(count)) {
+                out.write(entry.kind + "\t" + entry.id + "\t" + entry.count);
+                out.write('\n');
+            }
+        }
+
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return The entries of a file written by {@link #writeTop(Path, int)}, or an empty list if it is missing
+     *         or unreadable
+     */
+    public static List<Entry> readTop(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return List.of();
+        }
+
+        try {
+            List<Entry> entries = new ArrayList<>();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] columns = line.split("\t");
+                if (columns.length != 3) {
+                    throw new IllegalArgumentException("Expected 3 columns: " + line);
+                }
+                entries.add(new Entry(columns[0], columns[1], Long.parseLong(columns[2])));
+            }
+
+            return entries;
+        }
+        catch (IOException | IllegalArgumentException e) {
+            LOG.warn("Ignoring usage summary {}, it could not be read", file, e);
+            return List.of();
+        }
+    }
+
+    private void log(int count) {
+        LOG.info("Interactions by command: {}", commands);
+        hours.forEach((hour, summary) -> LOG.info("{}: {}", Instant.ofEpochMilli(hour), summary));
+
+        List<Map.Entry<Integer, Long>> topPokemon = new ArrayList<>(pokemon.entrySet());
+        topPokemon.sort(Map.Entry.<Integer, Long>comparingByValue().reversed());
+        LOG.info("Most viewed pokemon (id=views): {}", topPokemon.subList(0, Math.min(count, topPokemon.size())));
+    }
+
+    /**
+     * Aggregates a usage log, logs the summaries and writes the most used views.
+     *
+     * @param args
+     *        The usage log, then optionally the number of views to keep (defaults to {@link #DEFAULT_TOP_COUNT})
+     *        and the path of the file to write (defaults to {@link #DEFAULT_FILE})
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: UsageReport <usage log> [top count] [output file]");
+        }
+
+        Path log = Paths.get(args[0]);
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_TOP_COUNT;
+        Path file = args.length > 2 ? Paths.get(args[2]) : DEFAULT_FILE;
+
+        long start = System.nanoTime();
+        UsageLog.Reader reader = UsageLog.read(log);
+        UsageReport report = aggregate(reader);
+        report.log(count);
+        report.writeTop(file, count);
+
+        LOG.info("Aggregated {} interactions from {} in {}ms, wrote the {} most used views to {}",
+            reader.getRecordCount(), log, (System.nanoTime() - start) / 1_000_000, count, file.toAbsolutePath());
+    }
+
+    public static class Entry {
+        private final String kind;
+        private final String id;
+        private final long count;
+
+        Entry(String kind, String id, long count) {
+            this.kind = kind;
+            this.id = id;
+            this.count = count;
+        }
+
+        /**
+         * @return {@code view} or {@code evolutions}
+         */
+        public String getKind() {
+            return kind;
+        }
+
+        /**
+         * @return The encoded {@link ComponentId} of a view, or the pokemon id of an evolution chain
+         */
+        public String getId() {
+            return id;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    private static class HourSummary {
+        private long interactions;
+        private long failures;
+        private int[] latencies = new int[64];
+
+        private void add(int latencyMicros, boolean success) {
+            if (interactions == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[(int) interactions++] = latencyMicros;
+            if (!success) {
+                failures++;
+            }
+        }
+
+        private double getPercentileMillis(int[] sorted, double percentile) {
+            return sorted[(int) Math.min(sorted.length - 1, (long) (sorted.length * percentile))] / 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            int[] sorted = Arrays.copyOf(latencies, (int) interactions);
+            Arrays.sort(sorted);
+            return String.format("%d interactions, %d failed, latency p50 %.1fms, p95 %.1fms, p99 %.1fms",
+                interactions, failures, getPercentileMillis(sorted, 0.5), getPercentileMillis(sorted, 0.95), getPercentileMillis(sorted, 0.99));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package net.dv8tion.pokedex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComponentIdTest
+{
+    @Test
+    void decodesBaselinePokedexPageId() {
+        // Sent by the first generation's pokedex before generations could be selected
+        long componentId = ComponentId.decode("pokedex--3");
+
+        assertEquals(ComponentId.Action.POKEDEX_PAGE, ComponentId.getAction(componentId));
+        assertEquals(Generation.GEN_1, ComponentId.getGeneration(componentId));
+        assertEquals(3, ComponentId.getPage(componentId));
+    }
+
+    @Test
+    void decodesBaselinePokemonCardId() {
+        long componentId = ComponentId.decode("pokemon-card--133");
+
+        assertEquals(ComponentId.Action.POKEMON_CARD, ComponentId.getAction(componentId));
+        assertEquals(133, ComponentId.getPokemonId(componentId));
+        assertEquals(Generation.GEN_1, ComponentId.getGeneration(componentId));
+        assertEquals(MediaDelivery.RANDOM_PAGE, ComponentId.getGalleryPage(componentId));
+    }
+
+    @Test
+    void rejectsMalformedLegacyPokedexPageId() {
+        assertEquals(ComponentId.INVALID, ComponentId.decode("pokedex--"));
+        assertEquals(ComponentId.INVALID, ComponentId.decode("pokedex--x"));
+        assertEquals(ComponentId.INVALID, ComponentId.decode("pokedex--1--"));
+        assertEquals(ComponentId.INVALID, ComponentId.decode("pokemon-card--"));
+    }
+
+    @Test
+    void roundTripsEveryAction() {
+        for (ComponentId.Action action : ComponentId.Action.values()) {
+            for (Generation generation : new Generation[] { null, Generation.GEN_1, Generation.values()[Generation.values().length - 1] }) {
+                long packed = ComponentId.pack(action, generation, 4095, 65535);
+                long decoded = ComponentId.decode(ComponentId.encode(action, generation, 4095, 65535));
+
+                assertEquals(packed, decoded, action + " " + generation);
+                assertEquals(action, ComponentId.getAction(decoded));
+                assertEquals(generation, ComponentId.getGeneration(decoded));
+                assertEquals(4095, ComponentId.getPage(decoded));
+                assertEquals(65535, ComponentId.getPokemonId(decoded));
+            }
+        }
+    }
+
+    @Test
+    void roundTripsPokemonCard() {
+        long componentId = ComponentId.decode(ComponentId.pokemonCard(151, 3, Generation.GEN_1));
+
+        assertEquals(ComponentId.Action.POKEMON_CARD, ComponentId.getAction(componentId));
+        assertEquals(151, ComponentId.getPokemonId(componentId));
+        assertEquals(3, ComponentId.getGalleryPage(componentId));
+        assertEquals(Generation.GEN_1, ComponentId.getGeneration(componentId));
+
+        long randomPage = ComponentId.decode(ComponentId.pokemonCard(25, null));
+        assertEquals(MediaDelivery.RANDOM_PAGE, ComponentId.getGalleryPage(randomPage));
+        assertNull(ComponentId.getGeneration(randomPage));
+    }
+
+    @Test
+    void roundTripsSearchPage() {
+        PokedexQuery query = new PokedexQuery("Fire", "Flying", Generation.GEN_1, PokemonData.Stat.SPEED, true, PokemonData.Stat.HP, 10, 99);
+        long componentId = ComponentId.decode(ComponentId.searchPage(query, 7));
+
+        assertEquals(ComponentId.Action.SEARCH_PAGE, ComponentId.getAction(componentId));
+        assertEquals(7, ComponentId.getPage(componentId));
+        assertEquals(query, ComponentId.getQuery(componentId));
+    }
+
+    @Test
+    void rejectsOutOfRangeFields() {
+        assertThrows(IllegalArgumentException.class, () -> ComponentId.pack(ComponentId.Action.POKEDEX_PAGE, null, 4096, 0));
+        assertThrows(IllegalArgumentException.class, () -> ComponentId.pack(ComponentId.Action.POKEMON_CARD, null, 0, 65536));
+    }
+
+    @Test
+    void rejectsUnknownIds() {
+        assertEquals(ComponentId.INVALID, ComponentId.decode(""));
+        assertEquals(ComponentId.INVALID, ComponentId.decode("1"));
+        assertEquals(ComponentId.INVALID, ComponentId.decode("1!"));
+        assertEquals(ComponentId.INVALID, ComponentId.decode("1zzzzzzzzzzzzz"));
+        // Action code 255 isn't used
+        assertEquals(ComponentId.INVALID, ComponentId.decode(ComponentId.VERSION + Long.toString(0xFF, 36)));
+        assertEquals(ComponentId.INVALID, ComponentId.decode("something-else"));
+    }
+}
@@ -0,0 +1,86 @@
+package net.dv8tion.pokedex;
+
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PokedexQueryEngineTest
+{
+    // Three pokemon share the lowest speed and two the middle one. Pokemon 7 has no base stats.
+    private static final PokedexQueryEngine ENGINE = new PokedexQueryEngine(new PokemonTable(DataArray.fromJson("["
+        + pokemon(1, "\"Grass\"", 45)
+        + "," + pokemon(2, "\"Fire\"", 60)
+        + "," + pokemon(3, "\"Water\"", 45)
+        + "," + pokemon(4, "\"Fire\", \"Flying\"", 80)
+        + "," + pokemon(5, "\"Grass\"", 60)
+        + "," + pokemon(6, "\"Fire\"", 45)
+        + "," + pokemon(7, "\"Water\"", -1)
+        + "]"), DataObject.empty()));
+
+    private static String pokemon(int id, String types, int speed) {
+        String base = speed < 0 ? "" : "\"base\": {\"HP\": " + id + ", \"Speed\": " + speed + "}, ";
+        return "{\"id\": " + id + ", "
+            + "\"name\": {\"english\": \"Pokemon " + id + "\", \"japanese\": \"\", \"chinese\": \"\", \"french\": \"\"}, "
+            + "\"species\": \"Test Pokemon\", \"description\": \"\", "
+            + "\"image\": {\"thumbnail\": \"https://example.com/" + id + ".png\"}, "
+            + "\"type\": [" + types + "], " + base
+            + "\"evolution\": {}}";
+    }
+
+    private static PokedexQuery sortedBySpeed(boolean ascending) {
+        return new PokedexQuery(null, null, null, PokemonData.Stat.SPEED, ascending, null, 0, PokedexQuery.MAX_STAT_VALUE);
+    }
+
+    private static int[] ids(PokedexQueryEngine.Result result) {
+        int[] ids = new int[result.getPokemonCount()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = result.getPokemonId(i);
+        }
+        return ids;
+    }
+
+    @Test
+    void sortsById() {
+        PokedexQuery query = new PokedexQuery(null, null, null, null, false, null, 0, PokedexQuery.MAX_STAT_VALUE);
+        PokedexQueryEngine.Result result = ENGINE.execute(query, 0, 10);
+
+        assertArrayEquals(new int[] { 1, 2, 3, 4, 5, 6, 7 }, ids(result));
+        assertEquals(7, result.getTotalMatches());
+    }
+
+    @Test
+    void sortsDescendingWithTiesById() {
+        assertArrayEquals(new int[] { 4, 2, 5, 1, 3, 6 }, ids(ENGINE.execute(sortedBySpeed(false), 0, 10)));
+    }
+
+    @Test
+    void sortsAscendingWithTiesById() {
+        // Ties stay ordered by id instead of being reversed along with the stats
+        assertArrayEquals(new int[] { 1, 3, 6, 2, 5, 4 }, ids(ENGINE.execute(sortedBySpeed(true), 0, 10)));
+    }
+
+    @Test
+    void pagesAcrossTies() {
+        PokedexQueryEngine.Result result = ENGINE.execute(sortedBySpeed(true), 2, 3);
+
+        assertArrayEquals(new int[] { 6, 2, 5 }, ids(result));
+        assertEquals(6, result.getTotalMatches());
+        assertEquals(0, ENGINE.execute(sortedBySpeed(true), 6, 3).getPokemonCount());
+    }
+
+    @Test
+    void filtersByTypesAndStat() {
+        PokedexQuery fire = new PokedexQuery("Fire", null, Generation.GEN_1, PokemonData.Stat.SPEED, true, null, 0, PokedexQuery.MAX_STAT_VALUE);
+        assertArrayEquals(new int[] { 6, 2, 4 }, ids(ENGINE.execute(fire, 0, 10)));
+
+        PokedexQuery fireAndFlying = new PokedexQuery("Fire", "Flying", null, null, false, null, 0, PokedexQuery.MAX_STAT_VALUE);
+        assertArrayEquals(new int[] { 4 }, ids(ENGINE.execute(fireAndFlying, 0, 10)));
+
+        PokedexQuery speed = new PokedexQuery(null, null, null, PokemonData.Stat.HP, false, PokemonData.Stat.SPEED, 50, 60);
+        PokedexQueryEngine.Result result = ENGINE.execute(speed, 0, 10);
+        assertArrayEquals(new int[] { 5, 2 }, ids(result));
+        assertEquals(2, result.getTotalMatches());
+    }
+}
@@ -0,0 +1,43 @@
+package net.dv8tion.pokedex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PokedexQueryTest
+{
+    @Test
+    void packsEveryField() {
+        Generation lastGeneration = Generation.values()[Generation.values().length - 1];
+        PokedexQuery[] queries = {
+            new PokedexQuery(null, null, null, null, false, null, 0, PokedexQuery.MAX_STAT_VALUE),
+            new PokedexQuery("Fire", "Flying", Generation.GEN_1, PokemonData.Stat.SPEED, true, PokemonData.Stat.HP, 10, 99),
+            new PokedexQuery(PokedexQuery.TYPES.get(PokedexQuery.TYPES.size() - 1), null, lastGeneration, PokemonData.Stat.HP, false, PokemonData.Stat.SPEED, 0, 0),
+            new PokedexQuery(null, "Water", null, null, true, PokemonData.Stat.SP_DEFENSE, PokedexQuery.MAX_STAT_VALUE, PokedexQuery.MAX_STAT_VALUE)
+        };
+
+        for (PokedexQuery query : queries) {
+            long packed = query.pack();
+
+            assertEquals(0, packed >>> PokedexQuery.PACKED_BITS, query.toString());
+            assertEquals(query, PokedexQuery.unpack(packed));
+        }
+    }
+
+    @Test
+    void ignoresBoundsWithoutFilterStat() {
+        PokedexQuery query = new PokedexQuery(null, null, null, PokemonData.Stat.SPEED, false, null, 10, 20);
+
+        assertEquals(0, query.getMin());
+        assertEquals(PokedexQuery.MAX_STAT_VALUE, query.getMax());
+    }
+
+    @Test
+    void rejectsInvalidQueries() {
+        assertThrows(IllegalArgumentException.class, () -> new PokedexQuery("Shadow", null, null, null, false, null, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PokedexQuery(null, null, null, null, false, PokemonData.Stat.HP, 20, 10));
+        assertThrows(IllegalArgumentException.class, () -> new PokedexQuery(null, null, null, null, false, PokemonData.Stat.HP, 0, PokedexQuery.MAX_STAT_VALUE + 1));
+        assertThrows(IllegalArgumentException.class, () -> PokedexQuery.unpack(-1));
+        assertThrows(IllegalArgumentException.class, () -> PokedexQuery.unpack(1L << PokedexQuery.PACKED_BITS));
+    }
+}
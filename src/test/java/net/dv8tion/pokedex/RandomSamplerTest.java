@@ -0,0 +1,65 @@
+package net.dv8tion.pokedex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomSamplerTest
+{
+    private static final List<Integer> ITEMS = IntStream.range(0, 50).boxed().toList();
+
+    @Test
+    void samplesDistinctItems() {
+        for (int count : new int[] { 0, 1, 10, 49, 50, 80 }) {
+            List<Integer> sample = RandomSampler.sample(ITEMS, count);
+
+            assertEquals(Math.min(count, ITEMS.size()), sample.size());
+            assertEquals(sample.size(), new HashSet<>(sample).size());
+            assertTrue(ITEMS.containsAll(sample));
+        }
+        assertEquals(List.of(), RandomSampler.sample(List.of(), 5));
+    }
+
+    @Test
+    void samplesTheSameItemsForTheSameSeed() {
+        assertEquals(RandomSampler.sample(ITEMS, 10, 42), RandomSampler.sample(ITEMS, 10, 42));
+    }
+
+    @Test
+    void pagesCoverEveryItemOnce() {
+        int pageSize = 8;
+        int pageCount = RandomSampler.getPageCount(ITEMS.size(), pageSize);
+        assertEquals(7, pageCount);
+
+        Set<Integer> seen = new HashSet<>();
+        for (int page = 0; page < pageCount; page++) {
+            List<Integer> items = RandomSampler.page(ITEMS, pageSize, page, 42);
+
+            assertEquals(page == pageCount - 1 ? 2 : pageSize, items.size());
+            for (Integer item : items) {
+                assertTrue(seen.add(item), "Drawn twice: " + item);
+            }
+        }
+        assertEquals(new HashSet<>(ITEMS), seen);
+    }
+
+    @Test
+    void wrapsAroundPages() {
+        assertEquals(RandomSampler.page(ITEMS, 8, 1, 42), RandomSampler.page(ITEMS, 8, 8, 42));
+        assertEquals(RandomSampler.page(ITEMS, 8, 6, 42), RandomSampler.page(ITEMS, 8, -1, 42));
+        assertEquals(List.of(), RandomSampler.page(List.of(), 8, 0, 42));
+    }
+
+    @Test
+    void growsItsIndexArrayForLargeLists() {
+        List<Integer> large = IntStream.range(0, 1000).boxed().toList();
+        List<Integer> sample = RandomSampler.sample(large, 1000, 7);
+
+        assertEquals(new HashSet<>(large), new HashSet<>(sample));
+    }
+}
@@ -0,0 +1,97 @@
+package net.dv8tion.pokedex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionStoreTest
+{
+    private static final long TTL = 60_000;
+
+    private static long page(int page) {
+        return ComponentId.pack(ComponentId.Action.POKEDEX_PAGE, Generation.GEN_1, page, 0);
+    }
+
+    private static long card(int pokemonId) {
+        return ComponentId.packPokemonCard(pokemonId, 1, Generation.GEN_1);
+    }
+
+    @Test
+    void startsAndReplacesSessions() {
+        SessionStore sessions = new SessionStore(16, TTL);
+        assertEquals(ComponentId.INVALID, sessions.getCurrent(1L));
+
+        sessions.start(1L, page(1));
+        sessions.navigate(1L, card(25), true);
+        assertEquals(card(25), sessions.getCurrent(1L));
+        assertEquals(page(1), sessions.peekBack(1L));
+
+        sessions.start(1L, page(2));
+        assertEquals(page(2), sessions.getCurrent(1L));
+        assertEquals(ComponentId.INVALID, sessions.peekBack(1L));
+        assertEquals(1, sessions.size());
+    }
+
+    @Test
+    void navigatesBackThroughPushedViews() {
+        SessionStore sessions = new SessionStore(16, TTL);
+        sessions.start(1L, page(1));
+        sessions.navigate(1L, page(2), false);
+        sessions.navigate(1L, card(25), true);
+        sessions.navigate(1L, card(26), true);
+
+        assertEquals(card(25), sessions.back(1L));
+        assertEquals(page(2), sessions.back(1L));
+        assertEquals(page(2), sessions.getCurrent(1L));
+        // Replaced views aren't on the stack
+        assertEquals(ComponentId.INVALID, sessions.back(1L));
+        assertEquals(page(2), sessions.getCurrent(1L));
+    }
+
+    @Test
+    void forgetsTheOldestViewsBeyondTheStackDepth() {
+        SessionStore sessions = new SessionStore(16, TTL);
+        sessions.start(1L, card(1));
+        for (int id = 2; id <= SessionStore.BACK_STACK_DEPTH + 3; id++) {
+            sessions.navigate(1L, card(id), true);
+        }
+
+        for (int id = SessionStore.BACK_STACK_DEPTH + 2; id > 2; id--) {
+            assertEquals(card(id), sessions.back(1L));
+        }
+        assertEquals(ComponentId.INVALID, sessions.back(1L));
+    }
+
+    @Test
+    void startsMissingSessionsWhenNavigating() {
+        SessionStore sessions = new SessionStore(16, TTL);
+        sessions.navigate(1L, card(25), true);
+
+        assertEquals(card(25), sessions.getCurrent(1L));
+        assertEquals(ComponentId.INVALID, sessions.peekBack(1L));
+        assertEquals(1, sessions.getMisses());
+    }
+
+    @Test
+    void expiresSessions() {
+        SessionStore sessions = new SessionStore(16, 0);
+        sessions.start(1L, page(1));
+
+        assertEquals(ComponentId.INVALID, sessions.getCurrent(1L));
+        assertEquals(0, sessions.size());
+    }
+
+    @Test
+    void evictsWhenFull() {
+        SessionStore sessions = new SessionStore(8, TTL);
+        assertEquals(8, sessions.getCapacity());
+
+        for (long key = 1; key <= 9; key++) {
+            sessions.start(key, page((int) key));
+        }
+
+        assertEquals(8, sessions.size());
+        assertEquals(1, sessions.getEvictions());
+        assertEquals(page(9), sessions.getCurrent(9L));
+    }
+}
@@ -0,0 +1,80 @@
+package net.dv8tion.pokedex;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsageLogTest
+{
+    @TempDir
+    Path directory;
+
+    private UsageLog write(Path file, int count) throws IOException, InterruptedException {
+        UsageLog log = UsageLog.open(file);
+        for (int i = 1; i <= count; i++) {
+            long view = ComponentId.packPokemonCard(i, 1, Generation.GEN_1);
+            log.record(i % 2 == 0 ? UsageLog.Command.BUTTON : UsageLog.Command.LOOKUP, i % 3 != 0, view, i, i, TimeUnit.MILLISECONDS);
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (log.getWritten() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, log.getWritten());
+        assertEquals(0, log.getDropped());
+        return log;
+    }
+
+    private static void assertRecords(UsageLog.Reader reader, int count) {
+        assertEquals(count, reader.getRecordCount());
+        for (int i = 1; i <= count; i++) {
+            assertTrue(reader.next(), "Missing record " + i);
+            assertEquals(ComponentId.packPokemonCard(i, 1, Generation.GEN_1), reader.getView());
+            assertEquals(i, reader.getPokemonId());
+            assertEquals(i * 1000, reader.getLatencyMicros());
+            assertEquals(i % 2 == 0 ? UsageLog.Command.BUTTON : UsageLog.Command.LOOKUP, reader.getCommand());
+            assertEquals(i % 3 != 0, reader.isSuccess());
+            assertTrue(reader.getTimestamp() > 0);
+        }
+        assertFalse(reader.next());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void readsAcrossChunkBoundaries() throws Exception {
+        Path file = directory.resolve("usage.log");
+        write(file, 10);
+
+        // The last chunk holds 2 records
+        assertRecords(UsageLog.read(file, 4L * UsageLog.RECORD_SIZE), 10);
+        // Every chunk is full
+        assertRecords(UsageLog.read(file, 5L * UsageLog.RECORD_SIZE), 10);
+        // One record per chunk
+        assertRecords(UsageLog.read(file, UsageLog.RECORD_SIZE), 10);
+        assertRecords(UsageLog.read(file), 10);
+    }
+
+    @Test
+    void readsEmptyLog() throws Exception {
+        Path file = directory.resolve("usage.log");
+        write(file, 0);
+
+        UsageLog.Reader reader = UsageLog.read(file);
+        assertEquals(0, reader.getRecordCount());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void rejectsSecondWriter() throws Exception {
+        Path file = directory.resolve("usage.log");
+        UsageLog log = write(file, 1);
+
+        assertThrows(IOException.class, () -> UsageLog.open(file));
+        assertEquals(1, log.getWritten());
+    }
+}